@@ -8,10 +8,11 @@ import java.util.List;
 import java.util.ServiceLoader;
 import java.util.concurrent.ForkJoinPool;
 
-import de.codecentric.fpl.data.MapScope;
+import de.codecentric.fpl.data.GlobalScope;
 import de.codecentric.fpl.data.Scope;
 import de.codecentric.fpl.data.ScopeException;
 import de.codecentric.fpl.datatypes.AbstractFunction;
+import de.codecentric.fpl.datatypes.Compiler;
 import de.codecentric.fpl.datatypes.FplValue;
 import de.codecentric.fpl.parser.Parser;
 import de.codecentric.fpl.parser.Position;
@@ -28,7 +29,7 @@ public class DefaultFplEngine implements FplEngine {
 	public DefaultFplEngine() throws ScopeException, EvaluationException {
 		systemOut = System.out;
 		pool = ForkJoinPool.commonPool();
-		scope = new MapScope("global");
+		scope = new GlobalScope("global");
 
 		Iterator<ScopePopulator> iterator = ServiceLoader.load(ScopePopulator.class).iterator();
 		while (iterator.hasNext()) {
@@ -71,11 +72,12 @@ public class DefaultFplEngine implements FplEngine {
 				try {
 					if (parser.hasNext()) {
 						expression = parser.next();
+						FplValue result = null;
 						if (expression != null) {
-							expression = expression.evaluate(scope);
+							result = Compiler.compile(expression).evaluate(scope);
 						}
-						results.add(expression);
-						continueEvaluation = callback.handleSuccess(expression);
+						results.add(result);
+						continueEvaluation = callback.handleSuccess(result);
 					} else {
 						continueEvaluation = false;
 					}
@@ -93,6 +95,6 @@ public class DefaultFplEngine implements FplEngine {
 
 	@Override
 	public FplValue evaluate(FplValue expression) throws EvaluationException {
-		return expression.evaluate(scope);
+		return Compiler.compile(expression).evaluate(scope);
 	}
 }
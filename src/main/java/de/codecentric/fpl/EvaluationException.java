@@ -1,13 +1,33 @@
 package de.codecentric.fpl;
 
+import java.io.PrintStream;
+import java.io.PrintWriter;
 import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
 
 /**
  * Problems during evaluation.
+ * <p>
+ * The FPL stack trace is collected in a list while the exception travels up
+ * the FPL call stack, {@link #getStackTrace()} and the
+ * <code>printStackTrace</code> methods put it in front of the Java stack trace
+ * when they are called. Exceptions created without Java stack trace (see
+ * {@link #EvaluationException(String, int, boolean)}) are cheap enough to be
+ * used for control flow, their stack trace contains the FPL part only.
  */
 public class EvaluationException extends RuntimeException {
 	private static final long serialVersionUID = 6161879115582780204L;
-	private int added;
+	/** FPL stack trace, innermost call first, <code>null</code> when empty */
+	private ArrayList<StackTraceElement> fplStackTrace;
+	/** Java stack trace, saved before the FPL stack trace is put in front */
+	private StackTraceElement[] javaStackTrace;
+	/** Number of elements of {@link #fplStackTrace} in the stack trace of Throwable */
+	private int merged;
+	/** <code>false</code> while the constructor of Throwable runs */
+	private boolean constructed;
 	private int id;
 
 	/**
@@ -15,6 +35,8 @@ public class EvaluationException extends RuntimeException {
 	 */
 	public EvaluationException(String message) {
 		super(message);
+		constructed = true;
+		super.fillInStackTrace();
 	}
 
 	/**
@@ -22,8 +44,23 @@ public class EvaluationException extends RuntimeException {
 	 * @param id Id
 	 */
 	public EvaluationException(String message, int id) {
+		this(message);
+		this.id = id;
+	}
+
+	/**
+	 * @param message        Error message.
+	 * @param id             Id
+	 * @param javaStackTrace <code>false</code>: Do not capture the Java stack
+	 *                       trace.
+	 */
+	public EvaluationException(String message, int id, boolean javaStackTrace) {
 		super(message);
 		this.id = id;
+		constructed = true;
+		if (javaStackTrace) {
+			super.fillInStackTrace();
+		}
 	}
 
 	/**
@@ -78,26 +115,100 @@ public class EvaluationException extends RuntimeException {
 	 */
 	public String stackTraceAsString() {
 		StringBuilder builder = new StringBuilder();
-		StackTraceElement[] trace = getStackTrace();
 		for (int i = 0; i < getAdded(); i++) {
+			StackTraceElement element = fplStackTrace.get(i);
 			builder.append("    at ");
-			builder.append(trace[i].getMethodName()).append("(");
-			builder.append(trace[i].getFileName()).append(":");
-			builder.append(trace[i].getLineNumber()).append(")");
+			builder.append(element.getMethodName()).append("(");
+			builder.append(element.getFileName()).append(":");
+			builder.append(element.getLineNumber()).append(")");
 			builder.append(System.lineSeparator());
 		}
 		return builder.toString();
 	}
-	
-	public void add(StackTraceElement stackTraceElement) {
-		StackTraceElement[] st = getStackTrace();
-		StackTraceElement[] newSt = new StackTraceElement[st.length + 1];
 
-		System.arraycopy(st, 0, newSt, 0, added);
-		newSt[added] = stackTraceElement;
-		System.arraycopy(st, added, newSt, added + 1, st.length - added);
-		setStackTrace(newSt);
-		added++;
+	/**
+	 * Add an element to the FPL stack trace, the first one added is the top of
+	 * the stack.
+	 * 
+	 * @param stackTraceElement Element to add.
+	 */
+	public synchronized void add(StackTraceElement stackTraceElement) {
+		if (fplStackTrace == null) {
+			fplStackTrace = new ArrayList<>();
+		}
+		fplStackTrace.add(stackTraceElement);
+	}
+
+	/**
+	 * The constructor of Throwable calls this before the fields of this class are
+	 * initialized, so the constructors of this class capture the Java stack trace
+	 * instead (if wanted).
+	 */
+	@Override
+	public synchronized Throwable fillInStackTrace() {
+		if (!constructed) {
+			return this;
+		}
+		javaStackTrace = null;
+		merged = 0;
+		return super.fillInStackTrace();
+	}
+
+	/**
+	 * @return FPL stack trace followed by the Java stack trace (if captured).
+	 */
+	@Override
+	public StackTraceElement[] getStackTrace() {
+		mergeStackTrace();
+		return super.getStackTrace();
+	}
+
+	@Override
+	public void printStackTrace(PrintStream s) {
+		mergeStackTraces(this, Collections.newSetFromMap(new IdentityHashMap<>()));
+		super.printStackTrace(s);
+	}
+
+	@Override
+	public void printStackTrace(PrintWriter s) {
+		mergeStackTraces(this, Collections.newSetFromMap(new IdentityHashMap<>()));
+		super.printStackTrace(s);
+	}
+
+	/**
+	 * Throwable prints the stack traces it keeps internally, so the FPL stack
+	 * traces of the exception, its causes and its suppressed exceptions are put
+	 * there first.
+	 */
+	private static void mergeStackTraces(Throwable throwable, Set<Throwable> visited) {
+		if (throwable == null || !visited.add(throwable)) {
+			return;
+		}
+		if (throwable instanceof EvaluationException) {
+			((EvaluationException) throwable).mergeStackTrace();
+		}
+		mergeStackTraces(throwable.getCause(), visited);
+		for (Throwable suppressed : throwable.getSuppressed()) {
+			mergeStackTraces(suppressed, visited);
+		}
+	}
+
+	/**
+	 * Put the FPL stack trace added since the last call in front of the Java
+	 * stack trace.
+	 */
+	private synchronized void mergeStackTrace() {
+		int added = getAdded();
+		if (merged == added) {
+			return;
+		}
+		if (javaStackTrace == null) {
+			javaStackTrace = super.getStackTrace();
+		}
+		StackTraceElement[] stackTrace = fplStackTrace.toArray(new StackTraceElement[added + javaStackTrace.length]);
+		System.arraycopy(javaStackTrace, 0, stackTrace, added, javaStackTrace.length);
+		super.setStackTrace(stackTrace);
+		merged = added;
 	}
 
 	/**
@@ -110,7 +221,7 @@ public class EvaluationException extends RuntimeException {
 	/**
 	 * @return Number of {@link StackTraceElement}s added by the FPL interpreter.
 	 */
-	public int getAdded() {
-		return added;
+	public synchronized int getAdded() {
+		return fplStackTrace == null ? 0 : fplStackTrace.size();
 	}
 }
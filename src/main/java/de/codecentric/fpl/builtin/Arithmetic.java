@@ -3,17 +3,21 @@ package de.codecentric.fpl.builtin;
 import static de.codecentric.fpl.ExceptionWrapper.wrapException;
 
 import java.math.BigInteger;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import de.codecentric.fpl.EvaluationException;
 import de.codecentric.fpl.FplEngine;
 import de.codecentric.fpl.ScopePopulator;
+import de.codecentric.fpl.data.GlobalScope;
 import de.codecentric.fpl.data.Scope;
 import de.codecentric.fpl.data.ScopeException;
 import de.codecentric.fpl.datatypes.AbstractFunction;
+import de.codecentric.fpl.datatypes.FplBigInteger;
 import de.codecentric.fpl.datatypes.FplDouble;
 import de.codecentric.fpl.datatypes.FplInteger;
 import de.codecentric.fpl.datatypes.FplNumber;
 import de.codecentric.fpl.datatypes.FplValue;
+import de.codecentric.fpl.datatypes.list.NumberVector;
 
 /**
  * Basic arithmetic functions.
@@ -23,23 +27,42 @@ public class Arithmetic implements ScopePopulator {
 	@Override
 	public void populate(FplEngine engine) throws ScopeException, EvaluationException {
 		Scope scope = engine.getScope();
+		AtomicBoolean checked = new AtomicBoolean();
+		GlobalScope global = GlobalScope.of(scope);
 
-		scope.define(new ArithmeticFunction(ArithmeticOperator.PLUS));
-		scope.define(new ArithmeticFunction(ArithmeticOperator.MINUS));
-		scope.define(new ArithmeticFunction(ArithmeticOperator.TIMES));
-		scope.define(new ArithmeticFunction(ArithmeticOperator.DIVIDE));
-		scope.define(new ArithmeticFunction(ArithmeticOperator.MODULO));
-		scope.define(new ArithmeticFunction(ArithmeticOperator.EXP));
+		scope.define(new ArithmeticFunction(ArithmeticOperator.PLUS, checked));
+		scope.define(new ArithmeticFunction(ArithmeticOperator.MINUS, checked));
+		scope.define(new ArithmeticFunction(ArithmeticOperator.TIMES, checked));
+		scope.define(new ArithmeticFunction(ArithmeticOperator.DIVIDE, checked));
+		scope.define(new ArithmeticFunction(ArithmeticOperator.MODULO, checked));
+		scope.define(new ArithmeticFunction(ArithmeticOperator.EXP, checked));
+
+		scope.define(new AbstractFunction("checked-arithmetic",
+				"Switch checked integer arithmetic on or off (for this engine), return the previous setting. "
+						+ "When on, integer results which don't fit into 64 bit become big integers, "
+						+ "otherwise they overflow silently.",
+				"enabled") {
+			@Override
+			public FplValue callInternal(Scope scope, FplValue... parameters) throws EvaluationException {
+				boolean enabled = evaluateToBoolean(scope, parameters[0]);
+				boolean old = checked.getAndSet(enabled);
+				if (old != enabled && global != null) {
+					// Calls folded at compile time must be computed again.
+					global.bindingsChanged();
+				}
+				return old ? FplInteger.valueOf(1) : null;
+			}
+		});
 
 		scope.define(new AbstractFunction("round", //
 				"Round a double to a integer. `nil` is converted to 0.", "number") {
 			@Override
 			public FplValue callInternal(Scope scope, FplValue... parameters) throws EvaluationException {
 				FplNumber number = evaluateToNumber(scope, parameters[0]);
-				if (number instanceof FplInteger) {
-					return number;
-				} else { // must be FplDouble
+				if (number instanceof FplDouble) {
 					return FplInteger.valueOf(Math.round(((FplDouble) number).getValue()));
+				} else { // FplInteger or FplBigInteger
+					return number;
 				}
 			}
 		});
@@ -49,13 +72,82 @@ public class Arithmetic implements ScopePopulator {
 			@Override
 			public FplValue callInternal(Scope scope, FplValue... parameters) throws EvaluationException {
 				FplNumber number = evaluateToNumber(scope, parameters[0]);
-				if (number instanceof FplInteger) {
-					return number;
-				} else { // must be FplDouble
+				if (number instanceof FplDouble) {
 					return FplInteger.valueOf((long) ((FplDouble) number).getValue());
+				} else { // FplInteger or FplBigInteger
+					return number;
 				}
 			}
 		});
+
+		defineVectorFunctions(scope, checked);
+	}
+
+	private void defineVectorFunctions(Scope scope, AtomicBoolean checked) throws ScopeException, EvaluationException {
+		scope.define(new AbstractFunction("sum", "Sum of all numbers in a list, 0 for an empty list.", "list") {
+			@Override
+			public FplValue callInternal(Scope scope, FplValue... parameters) throws EvaluationException {
+				return evaluateToVector(scope, parameters[0]).sum(checked.get());
+			}
+		});
+
+		scope.define(new AbstractFunction("min", "Smallest number in a list.", "list") {
+			@Override
+			public FplValue callInternal(Scope scope, FplValue... parameters) throws EvaluationException {
+				return evaluateToVector(scope, parameters[0]).min();
+			}
+		});
+
+		scope.define(new AbstractFunction("max", "Largest number in a list.", "list") {
+			@Override
+			public FplValue callInternal(Scope scope, FplValue... parameters) throws EvaluationException {
+				return evaluateToVector(scope, parameters[0]).max();
+			}
+		});
+
+		scope.define(new AbstractFunction("mean", "Arithmetic mean (as double) of the numbers in a list.", "list") {
+			@Override
+			public FplValue callInternal(Scope scope, FplValue... parameters) throws EvaluationException {
+				return new FplDouble(evaluateToVector(scope, parameters[0]).mean());
+			}
+		});
+
+		scope.define(new AbstractFunction("stddev",
+				"Standard deviation (of the population, as double) of the numbers in a list.", "list") {
+			@Override
+			public FplValue callInternal(Scope scope, FplValue... parameters) throws EvaluationException {
+				return new FplDouble(evaluateToVector(scope, parameters[0]).standardDeviation());
+			}
+		});
+
+		scope.define(new AbstractFunction("dot",
+				"Dot product of two lists of numbers with the same size: Sum of the products of the elements.",
+				"list-a", "list-b") {
+			@Override
+			public FplValue callInternal(Scope scope, FplValue... parameters) throws EvaluationException {
+				return evaluateToVector(scope, parameters[0]).dot(evaluateToVector(scope, parameters[1]), checked.get());
+			}
+		});
+
+		scope.define(new AbstractFunction("vector-add",
+				"Add two lists of numbers with the same size element by element.", "list-a", "list-b") {
+			@Override
+			public FplValue callInternal(Scope scope, FplValue... parameters) throws EvaluationException {
+				return evaluateToVector(scope, parameters[0]).add(evaluateToVector(scope, parameters[1]), checked.get());
+			}
+		});
+
+		scope.define(new AbstractFunction("vector-mul",
+				"Multiply two lists of numbers with the same size element by element.", "list-a", "list-b") {
+			@Override
+			public FplValue callInternal(Scope scope, FplValue... parameters) throws EvaluationException {
+				return evaluateToVector(scope, parameters[0]).multiply(evaluateToVector(scope, parameters[1]), checked.get());
+			}
+		});
+	}
+
+	private static NumberVector evaluateToVector(Scope scope, FplValue expression) throws EvaluationException {
+		return NumberVector.of(AbstractFunction.evaluateToList(scope, expression));
 	}
 
 	private enum ArithmeticOperator {
@@ -69,6 +161,16 @@ public class Arithmetic implements ScopePopulator {
 			long execute(long left, long right) {
 				return left + right;
 			}
+
+			@Override
+			long executeExact(long left, long right) {
+				return Math.addExact(left, right);
+			}
+
+			@Override
+			BigInteger execute(BigInteger left, BigInteger right) {
+				return left.add(right);
+			}
 		},
 		MINUS("-", "Unary minus or subtract from first.") {
 			@Override
@@ -80,6 +182,16 @@ public class Arithmetic implements ScopePopulator {
 			long execute(long left, long right) {
 				return left - right;
 			}
+
+			@Override
+			long executeExact(long left, long right) {
+				return Math.subtractExact(left, right);
+			}
+
+			@Override
+			BigInteger execute(BigInteger left, BigInteger right) {
+				return left.subtract(right);
+			}
 		},
 		TIMES("*", "Multiply values.") {
 			@Override
@@ -91,6 +203,16 @@ public class Arithmetic implements ScopePopulator {
 			long execute(long left, long right) {
 				return left * right;
 			}
+
+			@Override
+			long executeExact(long left, long right) {
+				return Math.multiplyExact(left, right);
+			}
+
+			@Override
+			BigInteger execute(BigInteger left, BigInteger right) {
+				return left.multiply(right);
+			}
 		},
 		DIVIDE("/", "Divide first value by following values.") {
 			@Override
@@ -102,6 +224,16 @@ public class Arithmetic implements ScopePopulator {
 			long execute(long left, long right) {
 				return left / right;
 			}
+
+			@Override
+			long executeExact(long left, long right) {
+				return Math.divideExact(left, right);
+			}
+
+			@Override
+			BigInteger execute(BigInteger left, BigInteger right) {
+				return left.divide(right);
+			}
 		},
 		MODULO("%", "Modulo of first value by following values.") {
 			@Override
@@ -113,6 +245,16 @@ public class Arithmetic implements ScopePopulator {
 			long execute(long left, long right) {
 				return left % right;
 			}
+
+			@Override
+			long executeExact(long left, long right) {
+				return left % right; // can't overflow
+			}
+
+			@Override
+			BigInteger execute(BigInteger left, BigInteger right) {
+				return left.remainder(right);
+			}
 		},
 		EXP("**", "Exponentiation of first value by following values.") {
 			@Override
@@ -122,7 +264,23 @@ public class Arithmetic implements ScopePopulator {
 
 			@Override
 			long execute(long left, long right) {
-				return new BigInteger(Long.toString(left)).pow((int) right).longValue();
+				return power(left, right, false);
+			}
+
+			@Override
+			long executeExact(long left, long right) {
+				return power(left, right, true);
+			}
+
+			@Override
+			BigInteger execute(BigInteger left, BigInteger right) {
+				int exponent = right.intValueExact();
+				// The result has at least (bitLength - 1) * exponent bits, check before computing it.
+				if (left.abs().compareTo(BigInteger.ONE) > 0
+						&& (long) (left.bitLength() - 1) * exponent > MAX_POWER_BITS) {
+					throw new ArithmeticException("Result of ** too large");
+				}
+				return left.pow(exponent);
 			}
 		};
 
@@ -138,22 +296,141 @@ public class Arithmetic implements ScopePopulator {
 
 		abstract long execute(long left, long right);
 
+		/**
+		 * @throws ArithmeticException When the result does not fit into a
+		 *                             <code>long</code> (or on division by zero).
+		 */
+		abstract long executeExact(long left, long right);
+
+		abstract BigInteger execute(BigInteger left, BigInteger right);
+
 		@Override
 		public String toString() {
 			return name;
 		}
 	}
 
+	/**
+	 * Maximum number of bits of a big integer result of <code>**</code>, about
+	 * 315,000 decimal digits.
+	 */
+	static final long MAX_POWER_BITS = 1 << 20;
+
+	/**
+	 * Exponentiation by squaring.
+	 *
+	 * @param exact Throw an {@link ArithmeticException} on overflow.
+	 */
+	static long power(long base, long exponent, boolean exact) {
+		if (exponent < 0) {
+			throw new ArithmeticException("Negative exponent");
+		}
+		long result = 1;
+		while (exponent > 0) {
+			if ((exponent & 1) != 0) {
+				result = exact ? Math.multiplyExact(result, base) : result * base;
+			}
+			exponent >>= 1;
+			if (exponent > 0) {
+				base = exact ? Math.multiplyExact(base, base) : base * base;
+			}
+		}
+		return result;
+	}
+
 	private static class ArithmeticFunction extends AbstractFunction {
 		private final ArithmeticOperator op;
+		private final AtomicBoolean checked;
 
 		/**
-		 * @param op Operator: +, -, *, /, %, **
+		 * @param op      Operator: +, -, *, /, %, **
+		 * @param checked Checked arithmetic (shared by all operators of an engine).
 		 */
-		ArithmeticFunction(ArithmeticOperator op) throws EvaluationException {
+		ArithmeticFunction(ArithmeticOperator op, AtomicBoolean checked) throws EvaluationException {
 			super(op.name, op.comment, op == ArithmeticOperator.MINUS ? new String[] { "op..." }
 					: new String[] { "op1", "op2", "ops..." });
 			this.op = op;
+			this.checked = checked;
+		}
+
+		@Override
+		public boolean isPure() {
+			return true;
+		}
+
+		/**
+		 * Two operands: No parameter array, no loop, no lambda for wrapException().
+		 */
+		@Override
+		public FplValue call2(Scope scope, FplValue first, FplValue second) throws EvaluationException {
+			FplValue left = checkNumber(evaluateToAny(scope, first));
+			FplValue right = checkNumber(evaluateToAny(scope, second));
+			try {
+				return execute(left, right);
+			} catch (ArithmeticException e) {
+				throw new EvaluationException(e);
+			}
+		}
+
+		private FplValue checkNumber(FplValue value) throws EvaluationException {
+			if (value instanceof FplInteger || value instanceof FplDouble || value instanceof FplBigInteger) {
+				return value;
+			}
+			throw new EvaluationException(
+					op + " does not work on " + (value == null ? "nil" : value.getClass().getSimpleName()));
+		}
+
+		/**
+		 * @param left  A number.
+		 * @param right A number.
+		 * @return Result, double when one of the operands is a double.
+		 */
+		private FplValue execute(FplValue left, FplValue right) {
+			if (left instanceof FplInteger && right instanceof FplInteger) {
+				long l = ((FplInteger) left).getValue();
+				long r = ((FplInteger) right).getValue();
+				if (!checked.get()) {
+					return FplInteger.valueOf(op.execute(l, r));
+				}
+				try {
+					return FplInteger.valueOf(op.executeExact(l, r));
+				} catch (ArithmeticException e) {
+					if (r == 0) {
+						// division by zero, not an overflow
+						throw e;
+					}
+					return FplBigInteger.valueOf(op.execute(BigInteger.valueOf(l), BigInteger.valueOf(r)));
+				}
+			}
+			if (left instanceof FplDouble || right instanceof FplDouble) {
+				return new FplDouble(op.execute(toDouble(left), toDouble(right)));
+			}
+			return FplBigInteger.valueOf(
+					op.execute(FplBigInteger.toBigInteger(left), FplBigInteger.toBigInteger(right)));
+		}
+
+		private FplValue negate(FplValue value) {
+			if (value instanceof FplInteger) {
+				long l = ((FplInteger) value).getValue();
+				if (checked.get() && l == Long.MIN_VALUE) {
+					return FplBigInteger.valueOf(BigInteger.valueOf(l).negate());
+				}
+				return FplInteger.valueOf(-l);
+			} else if (value instanceof FplDouble) {
+				return new FplDouble(-((FplDouble) value).getValue());
+			} else {
+				return FplBigInteger.valueOf(((FplBigInteger) value).getValue().negate());
+			}
+		}
+
+		private static double toDouble(FplValue number) {
+			if (number instanceof FplInteger) {
+				return ((FplInteger) number).getValue();
+			}
+			if (number instanceof FplBigInteger) {
+				return ((FplBigInteger) number).getValue().doubleValue();
+			}
+			return ((FplDouble) number).getValue();
 		}
 
 		/**
@@ -162,58 +439,19 @@ public class Arithmetic implements ScopePopulator {
 		 */
 		@Override
 		public FplValue callInternal(Scope scope, FplValue... parameters) throws EvaluationException {
+			if (parameters.length == 2) {
+				return call2(scope, parameters[0], parameters[1]);
+			}
 			return wrapException(() -> {
-				FplValue value = evaluateToAny(scope, parameters[0]);
-				boolean isDouble;
-				long intAccumulator = 0;
-				double doubleAccumulator = 0;
-				if (value instanceof FplInteger) {
-					isDouble = false;
-					intAccumulator = ((FplInteger) value).getValue();
-				} else if (value instanceof FplDouble) {
-					isDouble = true;
-					doubleAccumulator = ((FplDouble) value).getValue();
-				} else {
-					throw new EvaluationException(
-							op + " does not work on " + (value == null ? "nil" : value.getClass().getSimpleName()));
-				}
+				FplValue value = checkNumber(evaluateToAny(scope, parameters[0]));
 				if (op == ArithmeticOperator.MINUS && parameters.length == 1) {
 					// unary minus
-					if (isDouble) {
-						return new FplDouble(-doubleAccumulator);
-					} else {
-						return FplInteger.valueOf(-intAccumulator);
-					}
+					return negate(value);
 				}
 				for (int i = 1; i < parameters.length; i++) {
-					long intNext = 0;
-					double doubleNext = 0;
-					value = evaluateToAny(scope, parameters[i]);
-					if (value instanceof FplInteger) {
-						if (isDouble) {
-							doubleNext = ((FplInteger) value).getValue();
-						} else {
-							intNext = ((FplInteger) value).getValue();
-						}
-					} else if (value instanceof FplDouble) {
-						if (!isDouble) {
-							// Switch to double mode
-							isDouble = true;
-							doubleAccumulator = intAccumulator;
-						}
-						doubleNext = ((FplDouble) value).getValue();
-					} else {
-						throw new EvaluationException(
-								op + " does not work on " + (value == null ? "nil" : value.getClass().getSimpleName()));
-					}
-
-					if (isDouble) {
-						doubleAccumulator = op.execute(doubleAccumulator, doubleNext);
-					} else { // long
-						intAccumulator = op.execute(intAccumulator, intNext);
-					}
+					value = execute(value, checkNumber(evaluateToAny(scope, parameters[i])));
 				}
-				return isDouble ? new FplDouble(doubleAccumulator) : FplInteger.valueOf(intAccumulator);
+				return value;
 			});
 		}
 	}
@@ -81,7 +81,7 @@ public class Assignment implements ScopePopulator {
 					if (t instanceof FplList) {
 						putMatch(scope, (FplList) t, (FplList) v);
 					} else {
-						put(scope, ((Symbol) t).getName(), v);
+						put(scope, valueToSymbol(t).getName(), v);
 					}
 				}
 			}
@@ -95,7 +95,7 @@ public class Assignment implements ScopePopulator {
 				while (global.getNext() != null) {
 					global = global.getNext();
 				}
-				return put(global, targetName(scope, parameters[0]), evaluateToAny(scope, parameters[1]));
+				return put(global, targetName(scope, parameters[0]), compactList(evaluateToAny(scope, parameters[1])));
 			}
 		});
 
@@ -148,12 +148,23 @@ public class Assignment implements ScopePopulator {
 					while (s.getNext() != null) {
 						s = s.getNext();
 					}
-					return s.define(targetName(scope, parameters[0]), evaluateToAny(scope, parameters[1]));
+					return s.define(targetName(scope, parameters[0]), compactList(evaluateToAny(scope, parameters[1])));
 				});
 			}
 		});
 	}
 
+	/**
+	 * Global values usually live long and are accessed often, so fragmented lists
+	 * are compacted before they are stored.
+	 */
+	private static FplValue compactList(FplValue value) {
+		if (value instanceof FplList) {
+			return ((FplList) value).compactIfFragmented();
+		}
+		return value;
+	}
+
 	public static FplValue put(Scope scope, String name, FplValue value) throws EvaluationException {
 		return wrapException(() -> {
 			return scope.put(name, value);
@@ -174,6 +185,11 @@ public class Assignment implements ScopePopulator {
 		if (expression instanceof Symbol) {
 			return ((Symbol) expression).getName();
 		} else if (expression instanceof Parameter) {
+			Parameter parameter = (Parameter) expression;
+			if (parameter.getDepth() > 0) {
+				// Parameter of an enclosing function, a local value may shadow it.
+				return parameter.getName();
+			}
 			throw new EvaluationException("Parameter " + expression + " can't be a target.");
 		} else {
 			if (expression == null) {
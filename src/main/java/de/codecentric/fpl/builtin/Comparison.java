@@ -1,15 +1,19 @@
 package de.codecentric.fpl.builtin;
 
+import java.util.Comparator;
+
 import de.codecentric.fpl.EvaluationException;
 import de.codecentric.fpl.FplEngine;
 import de.codecentric.fpl.ScopePopulator;
 import de.codecentric.fpl.data.Scope;
 import de.codecentric.fpl.data.ScopeException;
 import de.codecentric.fpl.datatypes.AbstractFunction;
+import de.codecentric.fpl.datatypes.FplBigInteger;
 import de.codecentric.fpl.datatypes.FplDouble;
 import de.codecentric.fpl.datatypes.FplInteger;
 import de.codecentric.fpl.datatypes.FplString;
 import de.codecentric.fpl.datatypes.FplValue;
+import de.codecentric.fpl.datatypes.Function;
 
 /**
  * Basic comparison functions.
@@ -18,6 +22,56 @@ public class Comparison implements ScopePopulator {
 	private static FplInteger TRUE = FplInteger.valueOf(1);
 	private static FplInteger FALSE = FplInteger.valueOf(0);
 
+	/**
+	 * Natural order of FPL values: <code>nil</code> first, then all numbers
+	 * (compared by value), then strings (compared by content). Other values can't
+	 * be compared and result in an {@link EvaluationException}.
+	 */
+	public static final Comparator<FplValue> NATURAL_ORDER = new Comparator<FplValue>() {
+
+		@Override
+		public int compare(FplValue left, FplValue right) {
+			int leftRank = rank(left);
+			int rightRank = rank(right);
+			if (leftRank != rightRank) {
+				return Integer.compare(leftRank, rightRank);
+			}
+			if (left instanceof FplInteger && right instanceof FplInteger) {
+				return Long.compare(((FplInteger) left).getValue(), ((FplInteger) right).getValue());
+			} else if (left instanceof FplString) {
+				return ((FplString) left).getContent().compareTo(((FplString) right).getContent());
+			} else if (left == null) {
+				return 0;
+			} else if (ComparisonFunction.isInteger(left) && ComparisonFunction.isInteger(right)) {
+				return FplBigInteger.toBigInteger(left).compareTo(FplBigInteger.toBigInteger(right));
+			} else {
+				return Double.compare(ComparisonFunction.toDouble(left), ComparisonFunction.toDouble(right));
+			}
+		}
+
+		private int rank(FplValue value) {
+			if (value == null) {
+				return 0;
+			} else if (ComparisonFunction.isNumber(value)) {
+				return 1;
+			} else if (value instanceof FplString) {
+				return 2;
+			} else {
+				throw new EvaluationException("Can't compare " + value.typeName() + ": " + value);
+			}
+		}
+	};
+
+	/**
+	 * @param function A function, may be <code>null</code>.
+	 * @return <code>true</code> when function is the builtin
+	 *         <code>compare-natural</code>, so callers can use
+	 *         {@link #NATURAL_ORDER} instead of calling the function.
+	 */
+	public static boolean isNaturalOrder(Function function) {
+		return function instanceof CompareNaturalFunction;
+	}
+
 	@Override
 	public void populate(FplEngine engine) throws ScopeException, EvaluationException {
 		Scope scope = engine.getScope();
@@ -27,6 +81,7 @@ public class Comparison implements ScopePopulator {
 		scope.define(new ComparisonFunction(CompareOperator.LE, "Compare lest less or equal than right."));
 		scope.define(new ComparisonFunction(CompareOperator.GT, "Compare left greater than right."));
 		scope.define(new ComparisonFunction(CompareOperator.GE, "Compare left greater or equal than right."));
+		scope.define(new CompareNaturalFunction());
 	}
 
 	private enum CompareOperator {
@@ -166,6 +221,31 @@ public class Comparison implements ScopePopulator {
 		abstract String symbol();
 	}
 
+	private static class CompareNaturalFunction extends AbstractFunction {
+		private static final FplInteger LESS = FplInteger.valueOf(-1);
+
+		private CompareNaturalFunction() throws EvaluationException {
+			super("compare-natural", "Compare in natural order (nil, numbers, strings), returns -1, 0, or 1.",
+					"left", "right");
+		}
+
+		@Override
+		public FplValue callInternal(Scope scope, FplValue... parameters) throws EvaluationException {
+			return call2(scope, parameters[0], parameters[1]);
+		}
+
+		@Override
+		public boolean isPure() {
+			return true;
+		}
+
+		@Override
+		public FplValue call2(Scope scope, FplValue first, FplValue second) throws EvaluationException {
+			int result = NATURAL_ORDER.compare(evaluateToAny(scope, first), evaluateToAny(scope, second));
+			return result < 0 ? LESS : result == 0 ? FALSE : TRUE;
+		}
+	}
+
 	private static class ComparisonFunction extends AbstractFunction {
 		private CompareOperator operator;
 
@@ -180,8 +260,23 @@ public class Comparison implements ScopePopulator {
 		 */
 		@Override
 		public FplValue callInternal(Scope scope, FplValue... parameters) throws EvaluationException {
-			FplValue left = evaluateToAny(scope, parameters[0]);
-			FplValue right = evaluateToAny(scope, parameters[1]);
+			return compare(scope, parameters[0], parameters[1]);
+		}
+
+		@Override
+		public boolean isPure() {
+			return true;
+		}
+
+		@Override
+		public FplValue call2(Scope scope, FplValue first, FplValue second) throws EvaluationException {
+			return compare(scope, first, second);
+		}
+
+		private FplValue compare(Scope scope, FplValue leftExpression, FplValue rightExpression)
+				throws EvaluationException {
+			FplValue left = evaluateToAny(scope, leftExpression);
+			FplValue right = evaluateToAny(scope, rightExpression);
 
 			if (left == null) {
 				if (right == null) {
@@ -221,6 +316,9 @@ public class Comparison implements ScopePopulator {
 
 		private FplValue compareValues(FplValue left, FplValue right) {
 			// Precondition: left != null && right != null
+			if (left instanceof FplBigInteger || right instanceof FplBigInteger) {
+				return compareBigInteger(left, right);
+			}
 			if (left instanceof FplInteger) {
 				if (right instanceof FplInteger) {
 					return operator.compare(((FplInteger) left).getValue(), ((FplInteger) right).getValue());
@@ -274,5 +372,40 @@ public class Comparison implements ScopePopulator {
 				return FALSE;
 			}
 		}
+
+		/**
+		 * At least one of left and right is a {@link FplBigInteger}.
+		 */
+		private FplValue compareBigInteger(FplValue left, FplValue right) {
+			if (isInteger(left) && isInteger(right)) {
+				return operator.compare(FplBigInteger.toBigInteger(left).compareTo(FplBigInteger.toBigInteger(right)), 0);
+			} else if (isNumber(left) && isNumber(right)) {
+				return operator.compare(toDouble(left), toDouble(right));
+			} else {
+				switch (operator) {
+				case EQ:
+					return FALSE;
+				case NE:
+					return TRUE;
+				default:
+					return FALSE;
+				}
+			}
+		}
+
+		private static boolean isInteger(FplValue value) {
+			return value instanceof FplInteger || value instanceof FplBigInteger;
+		}
+
+		private static boolean isNumber(FplValue value) {
+			return isInteger(value) || value instanceof FplDouble;
+		}
+
+		private static double toDouble(FplValue number) {
+			if (number instanceof FplDouble) {
+				return ((FplDouble) number).getValue();
+			}
+			return FplBigInteger.toBigInteger(number).doubleValue();
+		}
 	}
 }
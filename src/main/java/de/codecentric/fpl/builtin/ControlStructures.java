@@ -40,6 +40,11 @@ public class ControlStructures implements ScopePopulator {
 					return evaluateToAny(scope, parameters[2]);
 				}
 			}
+
+			@Override
+			public boolean isTailPosition(int index, int numberOfParameters) {
+				return index > 0;
+			}
 		});
 
 		scope.define(new AbstractFunction("if", //
@@ -53,6 +58,11 @@ public class ControlStructures implements ScopePopulator {
 					return null;
 				}
 			}
+
+			@Override
+			public boolean isTailPosition(int index, int numberOfParameters) {
+				return index == 1;
+			}
 		});
 
 		scope.define(new AbstractFunction("cond", //
@@ -70,6 +80,11 @@ public class ControlStructures implements ScopePopulator {
 				}
 				return i < parameters.length ? evaluateToAny(scope, parameters[i]) : null;
 			}
+
+			@Override
+			public boolean isTailPosition(int index, int numberOfParameters) {
+				return index % 2 == 1 || index == numberOfParameters - 1;
+			}
 		});
 
 		scope.define(new AbstractFunction("sequential", "Evaluate the parameters, return value of last parameter.",
@@ -82,6 +97,11 @@ public class ControlStructures implements ScopePopulator {
 				}
 				return value;
 			}
+
+			@Override
+			public boolean isTailPosition(int index, int numberOfParameters) {
+				return index == numberOfParameters - 1;
+			}
 		});
 
 		scope.define(new AbstractFunction("scope", "Evaluate the expression within a new scope, return value of last expression.",
@@ -95,6 +115,11 @@ public class ControlStructures implements ScopePopulator {
 				}
 				return value;
 			}
+
+			@Override
+			public boolean isTailPosition(int index, int numberOfParameters) {
+				return index == numberOfParameters - 1;
+			}
 		});
 
 		scope.define(new AbstractFunction("pipeline", "Evaluate the expressions within a new scope, return value of last expression. "
@@ -131,7 +156,7 @@ public class ControlStructures implements ScopePopulator {
 			@Override
 			public FplValue callInternal(Scope scope, FplValue... parameters) throws EvaluationException {
 				String message = evaluateToString(scope, parameters[0]);
-				throw new EvaluationException(message);
+				throw new EvaluationException(message, 0, false);
 			}
 		});
 
@@ -141,7 +166,7 @@ public class ControlStructures implements ScopePopulator {
 			public FplValue callInternal(Scope scope, FplValue... parameters) throws EvaluationException {
 				String message = evaluateToString(scope, parameters[0]);
 				long id = evaluateToLong(scope, parameters[1]);
-				throw new EvaluationException(message, (int) id);
+				throw new EvaluationException(message, (int) id, false);
 			}
 		});
 
@@ -191,7 +216,7 @@ public class ControlStructures implements ScopePopulator {
 					for (int i = resources.size() - 1; i >= 0; i--) {
 						Resource r = resources.get(i);
 						try {
-							r.function.call(localScope, new FplValue[] { r.value });
+							r.function.call1(localScope, r.value);
 						} catch (EvaluationException e) {
 							// ignore
 						}
@@ -255,12 +255,14 @@ public class Dictionary implements ScopePopulator {
 		Comparator<FplValue> comparator;
 		if (function == null) {
 			comparator = null;
+		} else if (Comparison.isNaturalOrder(function)) {
+			comparator = Comparison.NATURAL_ORDER;
 		} else {
 			comparator = new Comparator<FplValue>() {
 
 				@Override
 				public int compare(FplValue left, FplValue right) {
-					return (int) evaluateToLong(scope, function.call(scope, //
+					return (int) evaluateToLong(scope, function.call2(scope, //
 							FplLazy.makeEvaluated(scope, left), FplLazy.makeEvaluated(scope, right)));
 				}
 			};
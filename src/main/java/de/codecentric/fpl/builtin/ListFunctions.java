@@ -1,5 +1,7 @@
 package de.codecentric.fpl.builtin;
 
+import static de.codecentric.fpl.ExceptionWrapper.wrapException;
+
 import java.util.Iterator;
 
 import de.codecentric.fpl.EvaluationException;
@@ -10,10 +12,12 @@ import de.codecentric.fpl.data.ScopeException;
 import de.codecentric.fpl.datatypes.AbstractFunction;
 import de.codecentric.fpl.datatypes.FplDictionary;
 import de.codecentric.fpl.datatypes.FplInteger;
+import de.codecentric.fpl.datatypes.FplMapDictionary;
 import de.codecentric.fpl.datatypes.FplString;
 import de.codecentric.fpl.datatypes.FplValue;
 import de.codecentric.fpl.datatypes.Parameter;
 import de.codecentric.fpl.datatypes.list.FplList;
+import de.codecentric.fpl.datatypes.list.FplListBuilder;
 
 /**
  * Basic list functions and quote.
@@ -24,6 +28,11 @@ public class ListFunctions implements ScopePopulator {
 		Scope scope = engine.getScope();
 
 		scope.define(new AbstractFunction("quote", "Don't evaluate the argument, return it as is.", "expression") {
+			@Override
+			public boolean isPure() {
+				return true;
+			}
+
 			@Override
 			public FplValue callInternal(Scope scope, FplValue... parameters) throws EvaluationException {
 				if (parameters[0] instanceof Parameter) {
@@ -34,10 +43,19 @@ public class ListFunctions implements ScopePopulator {
 			}
 		});
 
-		scope.define(new AbstractFunction("size", "Number of elements in a list.", "list") {
+		scope.define(new AbstractFunction("size",
+				"Number of elements in a list. A sequence is consumed to count its elements.", "list") {
 			@Override
 			public FplValue callInternal(Scope scope, FplValue... parameters) throws EvaluationException {
-				return FplInteger.valueOf(evaluateToList(scope, parameters[0]).size());
+				Iterable<FplValue> list = evaluateToIterable(scope, parameters[0]);
+				if (list instanceof FplList) {
+					return FplInteger.valueOf(((FplList) list).size());
+				}
+				long count = 0;
+				for (Iterator<FplValue> iter = list.iterator(); iter.hasNext(); iter.next()) {
+					count++;
+				}
+				return FplInteger.valueOf(count);
 			}
 		});
 
@@ -86,6 +104,11 @@ public class ListFunctions implements ScopePopulator {
 		});
 
 		scope.define(new AbstractFunction("first", "Return first element of the list.", "list") {
+			@Override
+			public boolean isPure() {
+				return true;
+			}
+
 			@Override
 			public FplValue callInternal(Scope scope, FplValue... parameters) throws EvaluationException {
 				return evaluateToList(scope, parameters[0]).first();
@@ -93,6 +116,11 @@ public class ListFunctions implements ScopePopulator {
 		});
 
 		scope.define(new AbstractFunction("last", "Return last element of the list.", "list") {
+			@Override
+			public boolean isPure() {
+				return true;
+			}
+
 			@Override
 			public FplValue callInternal(Scope scope, FplValue... parameters) throws EvaluationException {
 				return evaluateToList(scope, parameters[0]).last();
@@ -100,6 +128,11 @@ public class ListFunctions implements ScopePopulator {
 		});
 
 		scope.define(new AbstractFunction("remove-first", "Return list without the first element.", "list") {
+			@Override
+			public boolean isPure() {
+				return true;
+			}
+
 			@Override
 			public FplValue callInternal(Scope scope, FplValue... parameters) throws EvaluationException {
 				return evaluateToList(scope, parameters[0]).removeFirst();
@@ -107,6 +140,11 @@ public class ListFunctions implements ScopePopulator {
 		});
 
 		scope.define(new AbstractFunction("remove-last", "Return list without the last element.", "list") {
+			@Override
+			public boolean isPure() {
+				return true;
+			}
+
 			@Override
 			public FplValue callInternal(Scope scope, FplValue... parameters) throws EvaluationException {
 				return evaluateToList(scope, parameters[0]).removeLast();
@@ -115,6 +153,11 @@ public class ListFunctions implements ScopePopulator {
 
 		scope.define(new AbstractFunction("add-front",
 				"Return a new list with expression added in front of the given list.", "expression", "list") {
+			@Override
+			public boolean isPure() {
+				return true;
+			}
+
 			@Override
 			public FplValue callInternal(Scope scope, FplValue... parameters) throws EvaluationException {
 				return evaluateToList(scope, parameters[1]).addAtStart(evaluateToAny(scope, parameters[0]));
@@ -123,6 +166,11 @@ public class ListFunctions implements ScopePopulator {
 
 		scope.define(new AbstractFunction("add-end",
 				"Return a new list with expression added at the end of the given list.", "list", "expression") {
+			@Override
+			public boolean isPure() {
+				return true;
+			}
+
 			@Override
 			public FplValue callInternal(Scope scope, FplValue... parameters) throws EvaluationException {
 				return evaluateToList(scope, parameters[0]).addAtEnd(evaluateToAny(scope, parameters[1]));
@@ -194,6 +242,84 @@ public class ListFunctions implements ScopePopulator {
 			}
 		});
 
+		scope.define(new AbstractFunction("list-footprint",
+				"Return a dictionary describing how a list is stored: \"storage\" (buckets, longs, doubles, rope or view), "
+						+ "\"size\", \"arrays\" (number of buckets or rope leaves), \"fragmented\" "
+						+ "and \"bytes\" (estimated memory, without the elements).",
+				"list") {
+			@Override
+			public FplValue callInternal(Scope scope, FplValue... parameters) throws EvaluationException {
+				FplList list = evaluateToList(scope, parameters[0]);
+				FplDictionary result = new FplMapDictionary();
+				return wrapException(() -> {
+					result.put(FplString.make("storage"), FplString.make(list.storageKind()));
+					result.put(FplString.make("size"), FplInteger.valueOf(list.size()));
+					result.put(FplString.make("arrays"), FplInteger.valueOf(list.arrayCount()));
+					result.put(FplString.make("fragmented"), list.isFragmented() ? FplInteger.valueOf(1) : null);
+					result.put(FplString.make("bytes"), FplInteger.valueOf(list.estimatedBytes()));
+					return result;
+				});
+			}
+		});
+
+		scope.define(new AbstractFunction("compact-list",
+				"Return a list with the same elements, stored like a list created in one step: "
+						+ "Fragmented buckets and ropes are rebalanced, views are copied.",
+				"list") {
+			@Override
+			public FplValue callInternal(Scope scope, FplValue... parameters) throws EvaluationException {
+				return evaluateToList(scope, parameters[0]).compact();
+			}
+		});
+
+		scope.define(new AbstractFunction("list-builder",
+				"Create a builder for a list. Elements are appended in place with `list-builder-add`, "
+						+ "`list-builder-build` returns the list. After that, the builder can't be used any more.") {
+			@Override
+			public FplValue callInternal(Scope scope, FplValue... parameters) throws EvaluationException {
+				return new FplListBuilder();
+			}
+		});
+
+		scope.define(new AbstractFunction("list-builder-add",
+				"Append elements at the end of the list in a list builder. Returns the builder.", "builder",
+				"element...") {
+			@Override
+			public FplValue callInternal(Scope scope, FplValue... parameters) throws EvaluationException {
+				FplListBuilder builder = evaluateToListBuilder(scope, parameters[0]);
+				for (int i = 1; i < parameters.length; i++) {
+					builder.add(evaluateToAny(scope, parameters[i]));
+				}
+				return builder;
+			}
+		});
+
+		scope.define(new AbstractFunction("list-builder-size", "Number of elements added to a list builder.",
+				"builder") {
+			@Override
+			public FplValue callInternal(Scope scope, FplValue... parameters) throws EvaluationException {
+				return FplInteger.valueOf(evaluateToListBuilder(scope, parameters[0]).size());
+			}
+		});
+
+		scope.define(new AbstractFunction("list-builder-build",
+				"Return the list with all elements of a list builder. The builder can't be used after this.",
+				"builder") {
+			@Override
+			public FplValue callInternal(Scope scope, FplValue... parameters) throws EvaluationException {
+				return evaluateToListBuilder(scope, parameters[0]).toList();
+			}
+		});
+
 		// iterator with lambda: See Loop.java
 	}
+
+	private static FplListBuilder evaluateToListBuilder(Scope scope, FplValue expression) throws EvaluationException {
+		FplValue value = expression.evaluate(scope);
+		if (value instanceof FplListBuilder) {
+			return (FplListBuilder) value;
+		} else {
+			throw new EvaluationException("Not a list builder: " + value);
+		}
+	}
 }
@@ -1,8 +1,11 @@
 package de.codecentric.fpl.builtin;
 
 import java.util.Arrays;
-import java.util.Comparator;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.NoSuchElementException;
 
 import de.codecentric.fpl.EvaluationException;
 import de.codecentric.fpl.FplEngine;
@@ -14,10 +17,13 @@ import de.codecentric.fpl.datatypes.FplDictionary;
 import de.codecentric.fpl.datatypes.FplInteger;
 import de.codecentric.fpl.datatypes.FplLazy;
 import de.codecentric.fpl.datatypes.FplMapDictionary;
+import de.codecentric.fpl.datatypes.FplSequence;
 import de.codecentric.fpl.datatypes.FplSortedDictionary;
 import de.codecentric.fpl.datatypes.FplValue;
 import de.codecentric.fpl.datatypes.Function;
 import de.codecentric.fpl.datatypes.list.FplList;
+import de.codecentric.fpl.datatypes.list.FplListBuilder;
+import de.codecentric.fpl.datatypes.list.NumberVector;
 
 /**
  * Loop functions.
@@ -41,17 +47,17 @@ public class Loop implements ScopePopulator {
 					}
 				});
 
-		scope.define(new AbstractFunction("for-each", "Apply a lambda to all list elements, return last result",
-				"lambda", "list") {
+		scope.define(new AbstractFunction("for-each",
+				"Apply a lambda to all elements of a list or sequence, return last result", "lambda", "list") {
 			@Override
 			public FplValue callInternal(Scope scope, FplValue... parameters) throws EvaluationException {
-				FplList list = evaluateToList(scope, parameters[1]);
+				Iterable<FplValue> list = evaluateToIterable(scope, parameters[1]);
 				Function function = evaluateToFunction(scope, parameters[0]);
 				FplValue result = null;
 				Iterator<FplValue> iter = list.iterator();
 				int i = 0;
 				while (iter.hasNext()) {
-					result = function.call(scope, FplLazy.makeEvaluated(scope, iter.next()), FplInteger.valueOf(i++));
+					result = function.call2(scope, FplLazy.makeEvaluated(scope, iter.next()), FplInteger.valueOf(i++));
 				}
 				return result;
 			}
@@ -72,7 +78,7 @@ public class Loop implements ScopePopulator {
 				long delta = end >= start ? 1 : -1;
 				FplValue result = null;
 				while (start != end) {
-					result = function.call(scope, new FplValue[] { FplInteger.valueOf(start) });
+					result = function.call1(scope, FplInteger.valueOf(start));
 					start += delta;
 				}
 				return result;
@@ -95,7 +101,7 @@ public class Loop implements ScopePopulator {
 				end += delta;
 				FplValue result = null;
 				while (start != end) {
-					result = function.call(scope, new FplValue[] { FplInteger.valueOf(start) });
+					result = function.call1(scope, FplInteger.valueOf(start));
 					start += delta;
 				}
 				return result;
@@ -119,7 +125,7 @@ public class Loop implements ScopePopulator {
 				if (start == end) {
 					return FplList.EMPTY_LIST;
 				} else {
-					return FplList.fromIterator(new Iterator<FplValue>() {
+					return FplList.fromNumbers(new Iterator<FplValue>() {
 						long current = start;
 
 						@Override
@@ -129,7 +135,7 @@ public class Loop implements ScopePopulator {
 
 						@Override
 						public FplValue next() {
-							return function.call(scope, new FplValue[] { FplInteger.valueOf(current++) });
+							return function.call1(scope, FplInteger.valueOf(current++));
 						}
 					}, (int) (end - start));
 				}
@@ -150,7 +156,7 @@ public class Loop implements ScopePopulator {
 				long end = evaluateToLong(scope, parameters[3]);
 				long delta = end >= start ? 1 : -1;
 				while (start != end) {
-					accumulator = function.call(scope, FplLazy.makeEvaluated(scope, accumulator), FplInteger.valueOf(start));
+					accumulator = function.call2(scope, FplLazy.makeEvaluated(scope, accumulator), FplInteger.valueOf(start));
 					start += delta;
 				}
 				return accumulator;
@@ -165,14 +171,20 @@ public class Loop implements ScopePopulator {
 			public FplValue callInternal(Scope scope, FplValue... parameters) throws EvaluationException {
 				Function function = evaluateToFunction(scope, parameters[0]);
 				FplList list = evaluateToList(scope, parameters[1]);
-				return list.map(new java.util.function.Function<FplValue, FplValue>() {
+				Iterator<FplValue> iter = list.iterator();
+				return FplList.fromNumbers(new Iterator<FplValue>() {
 					int i = 0;
-					
+
 					@Override
-					public FplValue apply(FplValue value) {
-						return function.call(scope, FplLazy.makeEvaluated(scope, value), FplInteger.valueOf(i++));
+					public boolean hasNext() {
+						return iter.hasNext();
 					}
-				});
+
+					@Override
+					public FplValue next() {
+						return function.call2(scope, FplLazy.makeEvaluated(scope, iter.next()), FplInteger.valueOf(i++));
+					}
+				}, list.size());
 			}
 		});
 
@@ -186,36 +198,47 @@ public class Loop implements ScopePopulator {
 					public FplValue callInternal(Scope scope, FplValue... parameters) throws EvaluationException {
 						Function function = evaluateToFunction(scope, parameters[0]);
 						FplList list = evaluateToList(scope, parameters[1]);
-						FplValue[] values = new FplValue[list.size()];
-						Iterator<FplValue> iter = list.iterator();
-						int i = 0;
-						while (iter.hasNext()) {
-							values[i++] = iter.next();
+						if (Comparison.isNaturalOrder(function)) {
+							return sortNatural(list);
 						}
-						Arrays.sort(values, new Comparator<FplValue>() {
+						FplValue[] values = list.toArray();
+						Arrays.sort(values, Dictionary.createFplValueComparator(scope, function));
 
-							@Override
-							public int compare(FplValue left, FplValue right) {
-								return (int) evaluateToLong(scope, function.call(scope,
-										FplLazy.makeEvaluated(scope, left), FplLazy.makeEvaluated(scope, right)));
-							}
-						});
+						return FplList.fromArrayTakingOwnership(values);
+					}
+				});
 
-						return FplList.fromIterator(new Iterator<FplValue>() {
-							int i = 0;
+		scope.define(new AbstractFunction("sort-natural",
+				"Sort a list in natural order: nil, numbers, strings. Same as (sort compare-natural list).", "list") {
 
-							@Override
-							public boolean hasNext() {
-								return i < values.length;
-							}
+			@Override
+			public FplValue callInternal(Scope scope, FplValue... parameters) throws EvaluationException {
+				return sortNatural(evaluateToList(scope, parameters[0]));
+			}
+		});
 
-							@Override
-							public FplValue next() {
-								return values[i++];
-							}
-						}, values.length);
-					}
-				});
+		scope.define(new AbstractFunction("sort-by-key",
+				"Sort a list by keys in natural order (nil, numbers, strings). The lambda is called once "
+						+ "for each element and returns its key. Elements with equal keys keep their order.",
+				"key-lambda", "list") {
+
+			@Override
+			public FplValue callInternal(Scope scope, FplValue... parameters) throws EvaluationException {
+				Function function = evaluateToFunction(scope, parameters[0]);
+				FplList list = evaluateToList(scope, parameters[1]);
+				FplValue[] values = list.toArray();
+				FplValue[][] keyed = new FplValue[values.length][];
+				for (int i = 0; i < values.length; i++) {
+					FplValue key = function.call1(scope, FplLazy.makeEvaluated(scope, values[i]));
+					keyed[i] = new FplValue[] { key, values[i] };
+				}
+				Arrays.sort(keyed, (left, right) -> Comparison.NATURAL_ORDER.compare(left[0], right[0]));
+				for (int i = 0; i < values.length; i++) {
+					values[i] = keyed[i][1];
+				}
+				return FplList.fromArrayTakingOwnership(values);
+			}
+		});
 
 		scope.define(new AbstractFunction("flat-map",
 				"Apply a lambda to all list elements, the result of the lambda must be a list. Return list with applied elements of all returned lists.",
@@ -230,7 +253,7 @@ public class Loop implements ScopePopulator {
 					
 					@Override
 					public FplList apply(FplValue value) {
-						FplValue applied = function.call(scope, FplLazy.makeEvaluated(scope, value), FplInteger.valueOf(i++));
+						FplValue applied = function.call2(scope, FplLazy.makeEvaluated(scope, value), FplInteger.valueOf(i++));
 						if (applied instanceof FplList) {
 							return (FplList) applied;
 						} else {
@@ -291,7 +314,7 @@ public class Loop implements ScopePopulator {
 		});
 
 		scope.define(new AbstractFunction("reduce",
-				"Reduce a list to one value. The function must accept two parameters: "
+				"Reduce a list or sequence to one value. The function must accept two parameters: "
 						+ "accumulator and value. It must return the \"reduction\" of accumulator and value.",
 				"function", "accumulator", "list") {
 
@@ -299,10 +322,10 @@ public class Loop implements ScopePopulator {
 			public FplValue callInternal(Scope scope, FplValue... parameters) throws EvaluationException {
 				Function function = evaluateToFunction(scope, parameters[0]);
 				FplValue accumulator = evaluateToAny(scope, parameters[1]);
-				FplList list = evaluateToList(scope, parameters[2]);
+				Iterable<FplValue> list = evaluateToIterable(scope, parameters[2]);
 				int i = 0;
 				for (FplValue value : list) {
-					accumulator = function.call(scope, FplLazy.makeEvaluated(scope, accumulator),
+					accumulator = function.call3(scope, FplLazy.makeEvaluated(scope, accumulator),
 							FplLazy.makeEvaluated(scope, value),
 							FplInteger.valueOf(i++));
 				}
@@ -322,7 +345,7 @@ public class Loop implements ScopePopulator {
 				int i = 0;
 				while (!initialHasNext && iter.hasNext()) {
 					FplValue value = iter.next();
-					if (isTrue(function.call(scope, FplLazy.makeEvaluated(scope, value), FplInteger.valueOf(i++)))) {
+					if (isTrue(function.call2(scope, FplLazy.makeEvaluated(scope, value), FplInteger.valueOf(i++)))) {
 						initialNext = value;
 						initialHasNext = true;
 					}
@@ -350,7 +373,7 @@ public class Loop implements ScopePopulator {
 						hasNext = false;
 						while (!hasNext && iter.hasNext()) {
 							FplValue value = iter.next();
-							if (isTrue(function.call(scope, FplLazy.makeEvaluated(scope, value), FplInteger.valueOf(j++)))) {
+							if (isTrue(function.call2(scope, FplLazy.makeEvaluated(scope, value), FplInteger.valueOf(j++)))) {
 								next = value;
 								hasNext = true;
 							}
@@ -388,7 +411,7 @@ public class Loop implements ScopePopulator {
 						FplValue value1 = iterator1.next();
 						FplValue value2 = iterator2.next();
 						FplInteger index = FplInteger.valueOf(i++);
-						return function.call(scope, FplLazy.makeEvaluated(scope, value1), FplLazy.makeEvaluated(scope, value2), index);
+						return function.call3(scope, FplLazy.makeEvaluated(scope, value1), FplLazy.makeEvaluated(scope, value2), index);
 					}
 				}, size);
 			}
@@ -415,7 +438,7 @@ public class Loop implements ScopePopulator {
 							nextElement = iterator.next();
 							nextElementValid = true;
 							// The result for the first element is not needed, but we still ahve to call the lambda.
-							function.call(scope, FplLazy.makeEvaluated(scope, nextElement), FplInteger.valueOf(counter++));
+							function.call2(scope, FplLazy.makeEvaluated(scope, nextElement), FplInteger.valueOf(counter++));
 						} else {
 							nextElementValid = false;
 						}
@@ -439,7 +462,7 @@ public class Loop implements ScopePopulator {
 							if (iterator.hasNext()) {
 								nextElement = iterator.next();
 								nextElementValid = true;
-								endReached = isTrue(function.call(scope, FplLazy.makeEvaluated(scope, nextElement), FplInteger.valueOf(counter++)));
+								endReached = isTrue(function.call2(scope, FplLazy.makeEvaluated(scope, nextElement), FplInteger.valueOf(counter++)));
 							} else {
 								nextElement = null;
 								nextElementValid = false;
@@ -463,24 +486,172 @@ public class Loop implements ScopePopulator {
 			public FplValue callInternal(Scope scope, FplValue... parameters) throws EvaluationException {
 				Function function = evaluateToFunction(scope, parameters[0]);
 				FplList list = evaluateToList(scope, parameters[1]);
-				FplDictionary dict = new FplMapDictionary();
+				Map<FplValue, FplListBuilder> groups = new HashMap<>();
 				int i = 0;
 				for (FplValue value : list) {
-					FplValue key = function.call(scope, FplLazy.makeEvaluated(scope, value), FplInteger.valueOf(i));
+					FplValue key = function.call2(scope, FplLazy.makeEvaluated(scope, value), FplInteger.valueOf(i));
 					if (key != null) {
-						FplList old = (FplList)dict.get(key);
-						if (old == null) {
-							dict.put(key, FplList.fromValue(value));
-						} else {
-							dict.put(key, old.addAtEnd(value)); 
-						}
+						groups.computeIfAbsent(key, k -> new FplListBuilder()).add(value);
 					}
 					i++;
 				}
-				
+				FplDictionary dict = new FplMapDictionary();
+				for (Entry<FplValue, FplListBuilder> entry : groups.entrySet()) {
+					dict.put(entry.getKey(), entry.getValue().toList());
+				}
 				return dict;
 			}
 		});
+
+		scope.define(new AbstractFunction("lazy-map",
+				"Like `map`, but return a sequence. The lambda is called when the sequence is consumed.", "lambda",
+				"list") {
+
+			@Override
+			public FplValue callInternal(Scope scope, FplValue... parameters) throws EvaluationException {
+				Function function = evaluateToFunction(scope, parameters[0]);
+				Iterable<FplValue> source = evaluateToIterable(scope, parameters[1]);
+				return new FplSequence(() -> new Iterator<FplValue>() {
+					Iterator<FplValue> iter = source.iterator();
+					int i = 0;
+
+					@Override
+					public boolean hasNext() {
+						return iter.hasNext();
+					}
+
+					@Override
+					public FplValue next() {
+						return function.call2(scope, FplLazy.makeEvaluated(scope, iter.next()), FplInteger.valueOf(i++));
+					}
+				});
+			}
+		});
+
+		scope.define(new AbstractFunction("lazy-filter",
+				"Like `filter`, but return a sequence. The lambda is called when the sequence is consumed.", "func",
+				"list") {
+
+			@Override
+			public FplValue callInternal(Scope scope, FplValue... parameters) throws EvaluationException {
+				Function function = evaluateToFunction(scope, parameters[0]);
+				Iterable<FplValue> source = evaluateToIterable(scope, parameters[1]);
+				return new FplSequence(() -> new Iterator<FplValue>() {
+					Iterator<FplValue> iter = source.iterator();
+					int i = 0;
+					FplValue next;
+					boolean nextValid;
+
+					@Override
+					public boolean hasNext() {
+						while (!nextValid && iter.hasNext()) {
+							FplValue value = iter.next();
+							if (isTrue(function.call2(scope, FplLazy.makeEvaluated(scope, value), FplInteger.valueOf(i++)))) {
+								next = value;
+								nextValid = true;
+							}
+						}
+						return nextValid;
+					}
+
+					@Override
+					public FplValue next() {
+						if (!hasNext()) {
+							throw new NoSuchElementException();
+						}
+						nextValid = false;
+						return next;
+					}
+				});
+			}
+		});
+
+		scope.define(new AbstractFunction("lazy-flat-map",
+				"Like `flat-map`, but return a sequence. The lambda may return a list or a sequence, "
+						+ "it is called when the sequence is consumed.",
+				"function", "list") {
+
+			@Override
+			public FplValue callInternal(Scope scope, FplValue... parameters) throws EvaluationException {
+				Function function = evaluateToFunction(scope, parameters[0]);
+				Iterable<FplValue> source = evaluateToIterable(scope, parameters[1]);
+				return new FplSequence(() -> new Iterator<FplValue>() {
+					Iterator<FplValue> iter = source.iterator();
+					Iterator<FplValue> subIter = null;
+					int i = 0;
+
+					@Override
+					public boolean hasNext() {
+						while (subIter == null || !subIter.hasNext()) {
+							if (!iter.hasNext()) {
+								return false;
+							}
+							FplValue applied = function.call2(scope, FplLazy.makeEvaluated(scope, iter.next()),
+									FplInteger.valueOf(i++));
+							if (applied instanceof FplList) {
+								subIter = ((FplList) applied).iterator();
+							} else if (applied instanceof FplSequence) {
+								subIter = ((FplSequence) applied).iterator();
+							} else {
+								throw new EvaluationException("Not a list or sequence: " + applied);
+							}
+						}
+						return true;
+					}
+
+					@Override
+					public FplValue next() {
+						if (!hasNext()) {
+							throw new NoSuchElementException();
+						}
+						return subIter.next();
+					}
+				});
+			}
+		});
+
+		scope.define(new AbstractFunction("lazy-map-sequence",
+				"Like `map-sequence`, but return a sequence. The lambda is called when the sequence is consumed.",
+				"lambda", "start", "end") {
+			@Override
+			public FplValue callInternal(Scope scope, FplValue... parameters) throws EvaluationException {
+				Function function = evaluateToFunction(scope, parameters[0]);
+				long start = evaluateToLong(scope, parameters[1]);
+				long end = evaluateToLong(scope, parameters[2]);
+				if (start > end) {
+					throw new EvaluationException("start > end");
+				}
+				return new FplSequence(() -> new Iterator<FplValue>() {
+					long current = start;
+
+					@Override
+					public boolean hasNext() {
+						return current < end;
+					}
+
+					@Override
+					public FplValue next() {
+						if (current >= end) {
+							throw new NoSuchElementException();
+						}
+						return function.call1(scope, FplInteger.valueOf(current++));
+					}
+				});
+			}
+		});
+
+		scope.define(new AbstractFunction("realize",
+				"Consume a sequence and return a list with all its elements. A list is returned as it is.",
+				"sequence") {
+			@Override
+			public FplValue callInternal(Scope scope, FplValue... parameters) throws EvaluationException {
+				Iterable<FplValue> source = evaluateToIterable(scope, parameters[0]);
+				if (source instanceof FplList) {
+					return (FplList) source;
+				}
+				return ((FplSequence) source).realize();
+			}
+		});
 	}
 
 	private static void fillDictionaryWithMappedList(Scope scope, Function keyLambda, Function valueLambda, FplList list,
@@ -488,14 +659,24 @@ public class Loop implements ScopePopulator {
 		int i = 0;
 		for (FplValue value : list) {
 			FplInteger index = FplInteger.valueOf(i);
-			FplValue key = keyLambda.call(scope, FplLazy.makeEvaluated(scope, value), index);
+			FplValue key = keyLambda.call2(scope, FplLazy.makeEvaluated(scope, value), index);
 			if (key != null) {
 				FplValue old = dict.get(key);
-				FplValue valueLambdaResult = valueLambda.call(scope, //
+				FplValue valueLambdaResult = valueLambda.call3(scope, //
 						FplLazy.makeEvaluated(scope, old), FplLazy.makeEvaluated(scope, value), index);
 				dict.put(key, valueLambdaResult);
 			}
 			i++;
 		}
 	}
+
+	private static FplList sortNatural(FplList list) {
+		FplList sorted = NumberVector.sortedOrNull(list);
+		if (sorted != null) {
+			return sorted;
+		}
+		FplValue[] values = list.toArray();
+		Arrays.sort(values, Comparison.NATURAL_ORDER);
+		return FplList.fromArrayTakingOwnership(values);
+	}
 }
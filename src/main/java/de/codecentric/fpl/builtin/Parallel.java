@@ -3,7 +3,6 @@ package de.codecentric.fpl.builtin;
 import static de.codecentric.fpl.ExceptionWrapper.wrapException;
 
 import java.util.ArrayList;
-import java.util.Iterator;
 import java.util.List;
 import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.ForkJoinTask;
@@ -69,18 +68,7 @@ public class Parallel implements ScopePopulator {
 			public FplValue callInternal(Scope scope, FplValue... parameters) throws EvaluationException {
 				Function function = evaluateToFunction(scope, parameters[0]);
 				FplList list = evaluateToList(scope, parameters[1]);
-				List<RecursiveTask<FplValue>> tasks = new ArrayList<>(list.size());
-				for (FplValue value : list) {
-					tasks.add(new RecursiveTask<FplValue>() {
-						private static final long serialVersionUID = -5037994686972663758L;
-
-						@Override
-						protected FplValue compute() {
-							return function.call(scope, new FplValue[] { value });
-						}
-					});
-				}
-				return executeTasks(tasks);
+				return FplList.fromArrayTakingOwnership(applyParallel(scope, function, list));
 			}
 		});
 
@@ -90,22 +78,11 @@ public class Parallel implements ScopePopulator {
 			public FplValue callInternal(Scope scope, FplValue... parameters) throws EvaluationException {
 				Function function = evaluateToFunction(scope, parameters[0]);
 				FplList list = evaluateToList(scope, parameters[1]);
-				int size = list.size();
-				if (size == 0) {
+				if (list.isEmpty()) {
 					return null;
 				} else {
-					List<RecursiveTask<FplValue>> tasks = new ArrayList<>(size);
-					for (FplValue value : list) {
-						tasks.add(new RecursiveTask<FplValue>() {
-							private static final long serialVersionUID = -5037994686972663758L;
-
-							@Override
-							protected FplValue compute() {
-								return function.call(scope, new FplValue[] { value });
-							}
-						});
-					}
-					return executeTasks(tasks).last();
+					FplValue[] results = applyParallel(scope, function, list);
+					return results[results.length - 1];
 				}
 			}
 		});
@@ -134,6 +111,22 @@ public class Parallel implements ScopePopulator {
 
 	}
 
+	/**
+	 * Apply <code>function</code> to all elements of <code>list</code>, using a
+	 * parallel stream in the pool of the engine.
+	 */
+	private FplValue[] applyParallel(Scope scope, Function function, FplList list) throws EvaluationException {
+		if (ForkJoinTask.inForkJoinPool()) {
+			return list.parallelStream().map(value -> function.call1(scope, value)).toArray(FplValue[]::new);
+		} else {
+			return wrapException(() -> {
+				return engine.getPool().submit(() -> {
+					return list.parallelStream().map(value -> function.call1(scope, value)).toArray(FplValue[]::new);
+				}).get();
+			});
+		}
+	}
+
 	private FplList executeTasks(List<RecursiveTask<FplValue>> tasks) throws EvaluationException {
 		int size = tasks.size();
 		if (ForkJoinTask.inForkJoinPool()) {
@@ -143,20 +136,13 @@ public class Parallel implements ScopePopulator {
 				engine.getPool().execute(task);
 			}
 		}
-		return FplList.fromIterator(new Iterator<FplValue>() {
-			int i = 0;
-
-			@Override
-			public boolean hasNext() {
-				return i < size;
-			}
-
-			@Override
-			public FplValue next() {
-				return wrapException(() -> {
-					return tasks.get(i++).get();
-				});
-			}
-		}, size);
+		FplValue[] values = new FplValue[size];
+		for (int i = 0; i < size; i++) {
+			RecursiveTask<FplValue> task = tasks.get(i);
+			values[i] = wrapException(() -> {
+				return task.get();
+			});
+		}
+		return FplList.fromArrayTakingOwnership(values);
 	}
 }
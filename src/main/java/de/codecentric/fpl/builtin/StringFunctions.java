@@ -484,7 +484,7 @@ public class StringFunctions implements ScopePopulator {
 
 			private FplList parseList(JsonParser parser) throws IOException {
 				parser.nextToken(); // skip START_ARRAY
-				FplList list = FplList.fromIterator(new Iterator<FplValue>() {
+				FplList list = FplList.fromNumbers(new Iterator<FplValue>() {
 
 					@Override
 					public boolean hasNext() {
@@ -0,0 +1,147 @@
+package de.codecentric.fpl.data;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import de.codecentric.fpl.datatypes.FplValue;
+
+/**
+ * The outermost scope of an engine. Keeps a binding version for the keys code
+ * has resolved once (see {@link #watchBinding(String)}), so this code knows
+ * whether a lookup could give a different result. Only changes of this scope
+ * change the version, shadowing in inner scopes is checked with
+ * {@link #isVisibleFrom(Scope, String)} when compiling and with
+ * {@link #isStillVisibleFrom(Scope, String)} at runtime.
+ */
+public class GlobalScope extends MapScope {
+	/** Keys where a change changes the binding version. */
+	private final Set<String> watchedKeys = ConcurrentHashMap.newKeySet();
+	private final AtomicLong bindingVersion = new AtomicLong();
+
+	public GlobalScope(String name) {
+		super(name);
+	}
+
+	/**
+	 * From now on, each change of a value with the given key changes the
+	 * {@link #getBindingVersion()}.
+	 *
+	 * @param key Key to watch.
+	 */
+	public void watchBinding(String key) {
+		watchedKeys.add(key);
+	}
+
+	/**
+	 * @return Version of the keys registered with {@link #watchBinding(String)}.
+	 */
+	public long getBindingVersion() {
+		return bindingVersion.get();
+	}
+
+	/**
+	 * Change the {@link #getBindingVersion()}, for changes which are not visible
+	 * as a change of a value (e.g. a switch of the behavior of builtin functions).
+	 */
+	public void bindingsChanged() {
+		bindingVersion.incrementAndGet();
+	}
+
+	/**
+	 * Does a lookup of <code>key</code> in <code>scope</code> find the value of
+	 * this scope? This is the case when this scope is in the chain of
+	 * <code>scope</code> and all scopes in between don't contain the key.
+	 *
+	 * @param scope Scope where the lookup starts.
+	 * @param key   Name of value to lookup
+	 * @return <code>false</code> if the value may be shadowed.
+	 */
+	public boolean isVisibleFrom(Scope scope, String key) {
+		while (scope != this) {
+			if (!(scope instanceof MapScope)) {
+				return false;
+			}
+			MapScope mapScope = (MapScope) scope;
+			if (!mapScope.isTransparent(key)
+					&& (mapScope instanceof PipelineScope || mapScope.getLocal(key) != null)) {
+				return false;
+			}
+			scope = mapScope.getNext();
+		}
+		return true;
+	}
+
+	/**
+	 * Like {@link #isVisibleFrom(Scope, String)}, for code which has been compiled
+	 * in a scope where the key was visible. The parameter names have been checked
+	 * at compile time (the parameters of the compiled lambda itself are never
+	 * looked up by name), so only scopes which have been written and
+	 * {@link PipelineScope}s can hide the value. For most scopes, this needs no
+	 * lookup.
+	 *
+	 * @param scope Scope where the compiled code is evaluated.
+	 * @param key   Name of value to lookup
+	 * @return <code>false</code> if the value may be shadowed.
+	 */
+	public boolean isStillVisibleFrom(Scope scope, String key) {
+		while (scope != this) {
+			if (!(scope instanceof MapScope)) {
+				return false;
+			}
+			MapScope mapScope = (MapScope) scope;
+			if (mapScope instanceof PipelineScope ? !mapScope.isTransparent(key)
+					: mapScope.isWritten() && mapScope.getLocal(key) != null) {
+				return false;
+			}
+			scope = mapScope.getNext();
+		}
+		return true;
+	}
+
+	/**
+	 * @param scope A scope.
+	 * @return The {@link GlobalScope} at the end of the chain of
+	 *         <code>scope</code>, <code>null</code> if there is none.
+	 */
+	public static GlobalScope of(Scope scope) {
+		while (scope != null && !(scope instanceof GlobalScope)) {
+			scope = scope.getNext();
+		}
+		return (GlobalScope) scope;
+	}
+
+	@Override
+	public FplValue put(String key, FplValue value) throws ScopeException {
+		FplValue old = super.put(key, value);
+		bindingChanged(key);
+		return old;
+	}
+
+	@Override
+	public FplValue replaceLocal(String key, FplValue newValue) throws ScopeException {
+		FplValue old = super.replaceLocal(key, newValue);
+		if (old != null) {
+			bindingChanged(key);
+		}
+		return old;
+	}
+
+	@Override
+	public FplValue define(String key, FplValue value) throws ScopeException {
+		super.define(key, value);
+		bindingChanged(key);
+		return value;
+	}
+
+	@Override
+	public String toString() {
+		return "GlobalScope<" + name + ">";
+	}
+
+	private void bindingChanged(String key) {
+		if (watchedKeys.contains(key)) {
+			bindingVersion.incrementAndGet();
+		}
+	}
+}
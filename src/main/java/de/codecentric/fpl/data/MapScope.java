@@ -1,6 +1,9 @@
 package de.codecentric.fpl.data;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -14,18 +17,32 @@ import static de.codecentric.fpl.data.Scope.checkKeyNotNullOrEmpty;
 import static de.codecentric.fpl.data.Scope.checkValueNotNull;
 
 /**
- * Just a little bit more than a {@link Map}, can be nested.
+ * Just a little bit more than a {@link Map}, can be nested. The map is
+ * allocated on the first write, most scopes (e.g. the ones created for a
+ * function call) never get a local value.
  */
 public class MapScope implements Scope {
+	private static final VarHandle MAP;
+
+	static {
+		try {
+			MAP = MethodHandles.lookup().findVarHandle(MapScope.class, "map", ConcurrentMap.class);
+		} catch (ReflectiveOperationException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
 	protected final String name;
-	protected ConcurrentMap<String, FplValue> map;
+	/** <code>null</code> until the first value is added */
+	private volatile ConcurrentMap<String, FplValue> map;
 	protected Scope next;
+	/** Set on the first write, the map may be empty again after removals. */
+	private volatile boolean written;
 
 	/**
 	 * Create a top level scope.
 	 */
 	public MapScope(String name) {
-		map = new ConcurrentHashMap<>();
 		this.name = name;
 		if (name == null || name.length() == 0) {
 			throw new IllegalArgumentException("empty name not allowed");
@@ -54,6 +71,31 @@ public class MapScope implements Scope {
 		this.next = next;
 	}
 
+	/**
+	 * @return The local values, an empty, unmodifiable map as long as nothing has
+	 *         been added.
+	 */
+	protected Map<String, FplValue> localMap() {
+		ConcurrentMap<String, FplValue> m = map;
+		return m == null ? Collections.emptyMap() : m;
+	}
+
+	/**
+	 * @return The local values, allocated when called for the first time.
+	 */
+	protected ConcurrentMap<String, FplValue> writableLocalMap() {
+		// before the value is visible, so a lookup never skips a written scope
+		written = true;
+		ConcurrentMap<String, FplValue> m = map;
+		if (m == null) {
+			m = new ConcurrentHashMap<>();
+			if (!MAP.compareAndSet(this, null, m)) {
+				m = map;
+			}
+		}
+		return m;
+	}
+
 	@Override
 	public String getName() {
 		return name;
@@ -67,7 +109,7 @@ public class MapScope implements Scope {
 	 */
 	@Override
 	public FplValue get(String key) {
-		FplValue value = map.get(key);
+		FplValue value = getLocal(key);
 		if (value != null) {
 			return value;
 		}
@@ -77,15 +119,48 @@ public class MapScope implements Scope {
 		return null;
 	}
 
+	/**
+	 * Lookup a symbol in this scope only, do not walk the chain of scopes.
+	 * 
+	 * @param key Name of value to lookup
+	 * @return The found value, may be null.
+	 */
+	public FplValue getLocal(String key) {
+		ConcurrentMap<String, FplValue> m = map;
+		return m == null ? null : m.get(key);
+	}
+
+	/**
+	 * @return <code>true</code> if a value has been added to this scope, it may
+	 *         have been removed again.
+	 */
+	boolean isWritten() {
+		return written;
+	}
+
+	/**
+	 * Can a lookup of <code>key</code> skip this scope? This is the case for a
+	 * scope which has never been written and has no other entries.
+	 *
+	 * @param key Name of value to lookup
+	 * @return <code>true</code> if {@link #getLocal(String)} would return
+	 *         <code>null</code> without doing a lookup.
+	 */
+	public boolean isTransparent(String key) {
+		return !written;
+	}
+
 	@Override
 	public FplValue put(String key, FplValue value) throws ScopeException {
 		checkKeyNotNullOrEmpty(key);
 		// null means remove
+		FplValue old;
 		if (value == null) {
-			return map.remove(key);
+			old = localMap().remove(key);
 		} else {
-			return map.put(key, value);
+			old = writableLocalMap().put(key, value);
 		}
+		return old;
 	}
 
 	@Override
@@ -107,14 +182,15 @@ public class MapScope implements Scope {
 	public FplValue replaceLocal(String key, FplValue newValue) throws ScopeException {
 		checkKeyNotNullOrEmpty(key);
 		checkValueNotNull(newValue);
-		return map.replace(key, newValue);
+		ConcurrentMap<String, FplValue> m = map;
+		return m == null ? null : m.replace(key, newValue);
 	}
 	
 	@Override
 	public FplValue define(String key, FplValue value) throws ScopeException {
 		checkKeyNotNullOrEmpty(key);
 		checkValueNotNull(value);
-		FplValue old = map.putIfAbsent(key, value);
+		FplValue old = writableLocalMap().putIfAbsent(key, value);
 		if (old != null) {
 			throw new ScopeException("Duplicate key: " + key);
 		}
@@ -128,7 +204,7 @@ public class MapScope implements Scope {
 
 	@Override
 	public Iterator<Entry<String, FplValue>> iterator() {
-		return map.entrySet().iterator();
+		return localMap().entrySet().iterator();
 	}
 	
 	@Override
@@ -138,16 +214,16 @@ public class MapScope implements Scope {
 
 	@Override
 	public Set<String> keySet() {
-		return map.keySet();
+		return localMap().keySet();
 	}
 
 	@Override
 	public Collection<FplValue> values() {
-		return map.values();
+		return localMap().values();
 	}
 	
 	@Override
 	public Set<Entry<String, FplValue>> entrieSet() {
-		return map.entrySet();
+		return localMap().entrySet();
 	}
 }
@@ -28,18 +28,32 @@ public class ParameterScope extends MapScope {
 	}
 
 	/**
-	 * Lookup a symbol, first in list of parameters. 
-	 * If not found in this scope, walk chain of scopes.
+	 * @param name Name of a parameter.
+	 * @return Index of the parameter or <code>null</code> if there is no parameter
+	 *         with this name.
+	 */
+	public Integer getParameterIndex(String name) {
+		return nameToIndex.get(name);
+	}
+
+	/**
+	 * Lookup a symbol, first in list of parameters, then in local values.
 	 * 
 	 * @param key Name of value to lookup
 	 * @return The found expression, may be null.
 	 */
-	public FplValue get(String key) {
+	@Override
+	public FplValue getLocal(String key) {
 		Integer index = nameToIndex.get(key);
 		if (index != null) {
 			return parameters[index];
 		}
-		return super.get(key);
+		return super.getLocal(key);
+	}
+
+	@Override
+	public boolean isTransparent(String key) {
+		return super.isTransparent(key) && !nameToIndex.containsKey(key);
 	}
 
 	@Override
@@ -81,7 +95,7 @@ public class ParameterScope extends MapScope {
 	public Set<String> keySet() {
 		Set<String> result = new HashSet<>();
 		result.addAll(nameToIndex.keySet());
-		result.addAll(map.keySet());
+		result.addAll(localMap().keySet());
 		return Collections.unmodifiableSet(result);
 	}
 
@@ -91,7 +105,7 @@ public class ParameterScope extends MapScope {
 		for (int i = 0; i < parameters.length; i++) {
 			result.add(parameters[i]);
 		}
-		result.addAll(map.values());
+		result.addAll(localMap().values());
 		return Collections.unmodifiableCollection(result);
 	}
 
@@ -101,7 +115,7 @@ public class ParameterScope extends MapScope {
 		for (Entry<String, Integer> entry : nameToIndex.entrySet()) {
 			result.put(entry.getKey(), parameters[entry.getValue()]);
 		}
-		result.putAll(map);;
+		result.putAll(localMap());
 		return Collections.unmodifiableSet(result.entrySet());
 	}
 
@@ -37,6 +37,20 @@ public class PipelineScope extends MapScope {
 		}
 	}
 
+	@Override
+	public FplValue getLocal(String key) {
+		if (pipeSymbol.equals(key)) {
+			return pipeValue;
+		} else {
+			return super.getLocal(key);
+		}
+	}
+
+	@Override
+	public boolean isTransparent(String key) {
+		return super.isTransparent(key) && !pipeSymbol.equals(key);
+	}
+
 	public FplValue get() {
 		return pipeValue;
 	}
@@ -77,21 +91,21 @@ public class PipelineScope extends MapScope {
 
 	@Override
 	public Iterator<Entry<String, FplValue>> iterator() {
-		ConcurrentMap<String, FplValue> mapWithPipe = new ConcurrentHashMap<String, FplValue>(map);
+		ConcurrentMap<String, FplValue> mapWithPipe = new ConcurrentHashMap<String, FplValue>(localMap());
 		mapWithPipe.put(pipeSymbol, pipeValue);
 		return mapWithPipe.entrySet().iterator();
 	}
 
 	@Override
 	public Set<String> keySet() {
-		Set<String> setWithPipe = new HashSet<>(map.keySet());
+		Set<String> setWithPipe = new HashSet<>(localMap().keySet());
 		setWithPipe.add(pipeSymbol);
 		return setWithPipe;
 	}
 
 	@Override
 	public Collection<FplValue> values() {
-		Collection<FplValue> valuesWithPipe = new ArrayList<>(map.size() + 1);
+		Collection<FplValue> valuesWithPipe = new ArrayList<>(localMap().size() + 1);
 		valuesWithPipe.addAll(super.values());
 		valuesWithPipe.add(pipeValue);
 		return valuesWithPipe;
@@ -99,7 +113,7 @@ public class PipelineScope extends MapScope {
 
 	@Override
 	public Set<Entry<String, FplValue>> entrieSet() {
-		ConcurrentMap<String, FplValue> mapWithPipe = new ConcurrentHashMap<String, FplValue>(map);
+		ConcurrentMap<String, FplValue> mapWithPipe = new ConcurrentHashMap<String, FplValue>(localMap());
 		mapWithPipe.put(pipeSymbol, pipeValue);
 		return mapWithPipe.entrySet();
 	}
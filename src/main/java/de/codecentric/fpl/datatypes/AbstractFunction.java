@@ -102,6 +102,32 @@ public abstract class AbstractFunction implements Named, PositionHolder, Functio
 	 */
 	protected abstract FplValue callInternal(Scope scope, FplValue... parameters) throws EvaluationException;
 
+	/**
+	 * Is the result of the function determined by the values of the parameters
+	 * alone, without side effects? Calls of such a builtin function with constant
+	 * parameters are evaluated at compile time, see also
+	 * {@link FplLazy#makeSpeculative(Scope, FplValue)}.
+	 * 
+	 * @return <code>false</code>, override for pure functions.
+	 */
+	public boolean isPure() {
+		return false;
+	}
+
+	/**
+	 * Is the parameter evaluated as the last step of the function, with its value
+	 * returned unchanged as result of the function? The evaluation must happen in
+	 * the scope of the caller or a scope nested in it. Self calls of lambdas in
+	 * such a position are executed without growing the stack.
+	 * 
+	 * @param index              Index of the parameter.
+	 * @param numberOfParameters Number of parameters in the call.
+	 * @return <code>false</code>, override for control structures.
+	 */
+	public boolean isTailPosition(int index, int numberOfParameters) {
+		return false;
+	}
+
 	@Override
 	public FplValue call(Scope scope, FplValue... parameters) throws EvaluationException {
 		int missing = checkNumberOfParameters(parameters);
@@ -115,6 +141,16 @@ public abstract class AbstractFunction implements Named, PositionHolder, Functio
 		return callInternal(scope, parameters);
 	}
 
+	/**
+	 * @param numberOfParameters Number of parameters of a call.
+	 * @return <code>true</code> if a call with this number of parameters runs the
+	 *         function, <code>false</code> if it results in Currying or an error.
+	 */
+	public boolean isCompleteCall(int numberOfParameters) {
+		return numberOfParameters == minimumNumberOfParameters
+				|| (varArg && numberOfParameters > minimumNumberOfParameters);
+	}
+
 	/**
 	 * @param parameters Parameters
 	 * @return Number of missing parameters, caller has to do "currying"
@@ -190,6 +226,27 @@ public abstract class AbstractFunction implements Named, PositionHolder, Functio
 		}
 	}
 
+	/**
+	 * Evaluate an expression, the result must be a {@link FplList} or a
+	 * {@link FplSequence}.
+	 * 
+	 * @param scope      Scope used for evaluation.
+	 * @param expression Expression to evaluate.
+	 * @return A list or a sequence.
+	 * @throws EvaluationException If <code>expression</code> does not evaluate to a
+	 *                             list or sequence.
+	 */
+	public static Iterable<FplValue> evaluateToIterable(Scope scope, FplValue expression) throws EvaluationException {
+		FplValue value = expression.evaluate(scope);
+		if (value instanceof FplList) {
+			return (FplList) value;
+		} else if (value instanceof FplSequence) {
+			return (FplSequence) value;
+		} else {
+			throw new EvaluationException("Not a list or sequence: " + value);
+		}
+	}
+
 	/**
 	 * Evaluate an expression and cast the result to a {@link FplList}.
 	 * 
@@ -366,6 +423,8 @@ public abstract class AbstractFunction implements Named, PositionHolder, Functio
 		FplNumber value = evaluateToNumber(scope, expression);
 		if (value instanceof FplInteger) {
 			return ((FplInteger) value).getValue();
+		} else if (value instanceof FplBigInteger) {
+			throw new EvaluationException("Integer too large: " + value);
 		} else { // must be FplDouble
 			return (long) ((FplDouble) value).getValue();
 		}
@@ -0,0 +1,245 @@
+package de.codecentric.fpl.datatypes;
+
+import java.util.Iterator;
+import java.util.Map;
+
+import de.codecentric.fpl.EvaluationException;
+import de.codecentric.fpl.data.GlobalScope;
+import de.codecentric.fpl.data.MapScope;
+import de.codecentric.fpl.data.ParameterScope;
+import de.codecentric.fpl.data.Scope;
+import de.codecentric.fpl.datatypes.list.BoundCall;
+import de.codecentric.fpl.datatypes.list.FoldedCall;
+import de.codecentric.fpl.datatypes.list.FplList;
+import de.codecentric.fpl.datatypes.list.FunctionCall;
+import de.codecentric.fpl.parser.Position;
+
+/**
+ * Converts parsed code into a tree which is faster to evaluate: Non empty lists
+ * become {@link FunctionCall}s, symbols naming a parameter of a lambda become
+ * {@link Parameter}s, everything else (constants, other symbols) is kept.
+ * <p>
+ * Symbols naming a parameter of an enclosing lambda get a lexical address
+ * (depth, index), when the chain of scopes from the definition scope to the
+ * {@link ParameterScope} of the enclosing lambda contains no other values.
+ * <p>
+ * Within lambdas, calls of builtin functions are bound to the function, calls
+ * of pure builtin functions with constant parameters (and <code>quote</code>)
+ * are evaluated at compile time. Both are guarded by
+ * {@link GlobalScope#getBindingVersion()} and check that the symbol is not
+ * shadowed, so a redefinition of a builtin function is still seen.
+ */
+public class Compiler {
+
+	private Compiler() {
+		// do not instantiate
+	}
+
+	/**
+	 * Compile a top level expression (not nested in a lambda).
+	 *
+	 * @param code The code, may be <code>null</code>.
+	 * @return Compiled code.
+	 */
+	public static FplValue compile(FplValue code) {
+		return compile(code, null, null, false);
+	}
+
+	/**
+	 * Compile code of a lambda.
+	 *
+	 * @param code            The code, may be <code>null</code>.
+	 * @param parameterMap    Mapping of parameter names to index.
+	 * @param definitionScope Scope in which the lambda is defined, used to find
+	 *                        parameters of enclosing lambdas. May be
+	 *                        <code>null</code>.
+	 * @return Compiled code.
+	 */
+	public static FplValue compile(FplValue code, Map<String, Integer> parameterMap, Scope definitionScope) {
+		return compile(code, parameterMap, definitionScope, false);
+	}
+
+	/**
+	 * Compile the last expression of a lambda. Calls of the lambda to itself in
+	 * tail position (directly or nested in control structures, see
+	 * {@link AbstractFunction#isTailPosition(int, int)}) are compiled to
+	 * {@link SelfTailCall}s. The calls of the control structures become
+	 * {@link TailControlCall}s, which check that the control structure has not
+	 * been redefined.
+	 *
+	 * @param code            The code, may be <code>null</code>.
+	 * @param parameterMap    Mapping of parameter names to index.
+	 * @param definitionScope Scope in which the lambda is defined.
+	 * @param lambda          The lambda.
+	 * @return Compiled code.
+	 */
+	public static FplValue compileTailPosition(FplValue code, Map<String, Integer> parameterMap, Scope definitionScope,
+			FplLambda lambda) {
+		return markTailCalls(compile(code, parameterMap, definitionScope, false), definitionScope, lambda);
+	}
+
+	/**
+	 * @param quoted Is <code>code</code> the argument of <code>quote</code>? In
+	 *               this case, lists are data and not converted to
+	 *               {@link FunctionCall}s.
+	 */
+	private static FplValue compile(FplValue code, Map<String, Integer> parameterMap, Scope definitionScope,
+			boolean quoted) {
+		if (code instanceof FplList) {
+			FplList list = (FplList) code;
+			if (list.isEmpty()) {
+				return list;
+			}
+			boolean quote = !quoted && isQuote(list);
+			Iterator<FplValue> iter = list.iterator();
+			FplList compiled = FplList.fromIterator(new Iterator<FplValue>() {
+				boolean head = true;
+
+				@Override
+				public boolean hasNext() {
+					return iter.hasNext();
+				}
+
+				@Override
+				public FplValue next() {
+					FplValue value = compile(iter.next(), parameterMap, definitionScope, quoted || (quote && !head));
+					head = false;
+					return value;
+				}
+			}, list.size());
+			if (quoted) {
+				return compiled;
+			}
+			FunctionCall call = new FunctionCall(compiled);
+			return parameterMap == null ? call : optimize(call, definitionScope);
+		} else if (parameterMap == null) {
+			return code;
+		} else if (code instanceof Symbol) {
+			return resolve((Symbol) code, parameterMap, definitionScope);
+		} else if (code instanceof Parameter) {
+			return resolve(((Parameter) code).getSymbol(), parameterMap, definitionScope);
+		} else {
+			return code;
+		}
+	}
+
+	private static FplValue markTailCalls(FplValue code, Scope definitionScope, FplLambda lambda) {
+		if (!(code instanceof FunctionCall) || !(((FunctionCall) code).getFunction() instanceof Symbol)) {
+			return code;
+		}
+		FunctionCall call = (FunctionCall) code;
+		int count = call.getNumberOfParameters();
+		String name = ((Symbol) call.getFunction()).getName();
+		if (name.equals(lambda.getName())) {
+			return lambda.isCompleteCall(count) ? new SelfTailCall(call, lambda) : call;
+		}
+		FplValue function = definitionScope.get(name);
+		if (!(function instanceof AbstractFunction) || !((AbstractFunction) function).isCompleteCall(count)) {
+			return call;
+		}
+		AbstractFunction control = (AbstractFunction) function;
+		FplList list = call;
+		for (int i = 0; i < count; i++) {
+			if (control.isTailPosition(i, count)) {
+				FplValue parameter = call.getParameter(i);
+				FplValue marked = markTailCalls(parameter, definitionScope, lambda);
+				if (marked != parameter) {
+					list = list.set(i + 1, marked);
+				}
+			}
+		}
+		return list == call ? call : new TailControlCall(list, control, call);
+	}
+
+	/**
+	 * Bind calls of builtin functions, evaluate calls of pure builtin functions
+	 * with constant parameters. Both are guarded by
+	 * {@link GlobalScope#getBindingVersion()}.
+	 */
+	private static FunctionCall optimize(FunctionCall call, Scope definitionScope) {
+		GlobalScope global = GlobalScope.of(definitionScope);
+		if (global == null || !(call.getFunction() instanceof Symbol)) {
+			return call;
+		}
+		String name = ((Symbol) call.getFunction()).getName();
+		if (!global.isVisibleFrom(definitionScope, name) || !isBuiltin(global.getLocal(name))) {
+			return call;
+		}
+		global.watchBinding(name);
+		long version = global.getBindingVersion();
+		// Resolve again, the value may have changed before the key was watched.
+		FplValue function = global.getLocal(name);
+		if (!isBuiltin(function)) {
+			return call;
+		}
+		AbstractFunction builtin = (AbstractFunction) function;
+		int count = call.getNumberOfParameters();
+		if (isQuote(call) && count == 1 && !(call.getParameter(0) instanceof Parameter)) {
+			return new FoldedCall(call, global, builtin, call.getParameter(0), version);
+		}
+		if (builtin.isPure() && builtin.isCompleteCall(count)) {
+			FplValue[] values = new FplValue[count];
+			int i = 0;
+			while (i < count && (values[i] = constantValue(call.getParameter(i))) != null) {
+				i++;
+			}
+			if (i == count) {
+				try {
+					return new FoldedCall(call, global, builtin, builtin.call(definitionScope, values), version);
+				} catch (EvaluationException e) {
+					// Not folded, so the exception is thrown at runtime
+				}
+			}
+		}
+		return new BoundCall(call, global, builtin, version);
+	}
+
+	private static boolean isBuiltin(FplValue function) {
+		return function instanceof AbstractFunction
+				&& ((AbstractFunction) function).getPosition() == Position.INTERNAL;
+	}
+
+	/**
+	 * @return The value of a constant expression, <code>null</code> when the
+	 *         expression is not constant.
+	 */
+	private static FplValue constantValue(FplValue code) {
+		if (code instanceof FoldedCall) {
+			code = ((FoldedCall) code).getValue();
+		}
+		if (code instanceof FplInteger || code instanceof FplDouble || code instanceof FplString) {
+			return code;
+		}
+		return null;
+	}
+
+	private static FplValue resolve(Symbol s, Map<String, Integer> parameterMap, Scope definitionScope) {
+		String name = s.getName();
+		Integer index = parameterMap.get(name);
+		if (index != null) {
+			return new Parameter(s, index);
+		}
+		int depth = 1;
+		Scope scope = definitionScope;
+		while (scope instanceof MapScope) {
+			if (scope instanceof ParameterScope) {
+				index = ((ParameterScope) scope).getParameterIndex(name);
+				if (index != null) {
+					return new Parameter(s, depth, index);
+				}
+			}
+			if (!((MapScope) scope).isTransparent(name)) {
+				// Local values may shadow parameters, lookup by name.
+				return s;
+			}
+			scope = scope.getNext();
+			depth++;
+		}
+		return s;
+	}
+
+	private static boolean isQuote(FplList list) {
+		FplValue head = list.first();
+		return head instanceof Symbol && AbstractFunction.QUOTE.getName().equals(((Symbol) head).getName());
+	}
+}
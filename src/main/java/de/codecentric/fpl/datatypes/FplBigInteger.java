@@ -0,0 +1,90 @@
+package de.codecentric.fpl.datatypes;
+
+import java.math.BigInteger;
+
+/**
+ * An FPL integer which does not fit into a <code>long</code>. Created by
+ * checked arithmetic when a result overflows; results which fit into a
+ * <code>long</code> are always {@link FplInteger}s.
+ */
+public class FplBigInteger implements EvaluatesToThisValue, FplNumber, Comparable<FplBigInteger> {
+	private final BigInteger value;
+
+	/**
+	 * @param value Value.
+	 * @return {@link FplInteger} when the value fits into a <code>long</code>,
+	 *         otherwise {@link FplBigInteger}.
+	 */
+	public static FplNumber valueOf(BigInteger value) {
+		if (value.bitLength() < 64) {
+			return FplInteger.valueOf(value.longValue());
+		}
+		return new FplBigInteger(value);
+	}
+
+	/**
+	 * @param number {@link FplInteger} or {@link FplBigInteger}.
+	 * @return Value of number as {@link BigInteger}.
+	 */
+	public static BigInteger toBigInteger(FplValue number) {
+		if (number instanceof FplInteger) {
+			return BigInteger.valueOf(((FplInteger) number).getValue());
+		}
+		return ((FplBigInteger) number).value;
+	}
+
+	private FplBigInteger(BigInteger value) {
+		this.value = value;
+	}
+
+	/**
+	 * @return Value.
+	 */
+	public BigInteger getValue() {
+		return value;
+	}
+
+	@Override
+	public String typeName() {
+		return "big-integer";
+	}
+
+	/**
+	 * @see java.lang.Object#hashCode()
+	 */
+	@Override
+	public int hashCode() {
+		return value.hashCode();
+	}
+
+	/**
+	 * @see java.lang.Object#equals(java.lang.Object)
+	 */
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (obj == null) {
+			return false;
+		}
+		if (getClass() != obj.getClass()) {
+			return false;
+		}
+		FplBigInteger other = (FplBigInteger) obj;
+		return value.equals(other.value);
+	}
+
+	/**
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return value.toString();
+	}
+
+	@Override
+	public int compareTo(FplBigInteger other) {
+		return value.compareTo(other.value);
+	}
+}
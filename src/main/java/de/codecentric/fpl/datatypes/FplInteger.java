@@ -4,30 +4,57 @@ package de.codecentric.fpl.datatypes;
  * An FPL integer.
  */
 public class FplInteger implements EvaluatesToThisValue, FplNumber, Comparable<FplInteger> {
-	private static FplInteger[] cache;
-	private static final int low = -128;
-	private static final int high = 127;
-	static {
-		cache = new FplInteger[(high - low) + 1];
-		int j = low;
-		for (int k = 0; k < cache.length; k++) {
-			cache[k] = new FplInteger(j++);
-		}
-	}
-	private long value;
+	/** Maximum number of cached values, larger ranges set by the properties are cut. */
+	public static final int MAX_CACHE_SIZE = 1 << 20;
+	/**
+	 * System property for the smallest cached value, default -1024. Values above 0
+	 * are treated as 0, values below 1 - {@value #MAX_CACHE_SIZE} as 1 -
+	 * {@value #MAX_CACHE_SIZE}.
+	 */
+	public static final String CACHE_LOW_PROPERTY = "fpl.integer.cache.low";
+	/**
+	 * System property for the largest cached value, default 65535. Values below 0
+	 * are treated as 0, the range from the smallest to the largest cached value is
+	 * cut to {@value #MAX_CACHE_SIZE} values.
+	 */
+	public static final String CACHE_HIGH_PROPERTY = "fpl.integer.cache.high";
+	private static final int low = cacheLow(Integer.getInteger(CACHE_LOW_PROPERTY, -1024));
+	private static final int high = cacheHigh(low, Integer.getInteger(CACHE_HIGH_PROPERTY, 65535));
+	/**
+	 * Filled on demand. Races are harmless: value is final, so at worst two equal
+	 * instances are created for the same value.
+	 */
+	private static final FplInteger[] cache = new FplInteger[(int) ((long) high - low + 1)];
+	private final long value;
 
 	/**
-	 * Factory method (to avoid duplicates for small values)
+	 * Factory method (to avoid duplicates for small values). The range of cached
+	 * values can be set with the system properties {@value #CACHE_LOW_PROPERTY}
+	 * and {@value #CACHE_HIGH_PROPERTY}.
 	 * 
 	 * @param value Value.
 	 */
 	public static FplInteger valueOf(long value) {
 		if (value >= low && value <= high) {
-			return cache[(int) value - low];
+			int index = (int) value - low;
+			FplInteger result = cache[index];
+			if (result == null) {
+				result = new FplInteger(value);
+				cache[index] = result;
+			}
+			return result;
 		}
 		return new FplInteger(value);
 	}
 
+	static int cacheLow(int low) {
+		return Math.max(Math.min(low, 0), 1 - MAX_CACHE_SIZE);
+	}
+
+	static int cacheHigh(int low, int high) {
+		return (int) Math.min(Math.max(high, 0), (long) low + MAX_CACHE_SIZE - 1);
+	}
+
 	private FplInteger(long value) {
 		this.value = value;
 	}
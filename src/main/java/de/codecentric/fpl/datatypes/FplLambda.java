@@ -27,7 +27,7 @@ public class FplLambda extends AbstractFunction {
 			throws EvaluationException {
 		super(position, name, comment, paramNames);
 		Map<String, Integer> parameterMap = getParameterNameToIndex();
-		this.code = compile(code, parameterMap);
+		this.code = compile(code, parameterMap, scope);
 		definitionScope = scope;
 	}
 
@@ -37,6 +37,87 @@ public class FplLambda extends AbstractFunction {
 	 */
 	@Override
 	public FplValue callInternal(final Scope scope, final FplValue... parameters) throws EvaluationException {
+		return execute(scope, bindParameters(scope, parameters));
+	}
+
+	@Override
+	public FplValue call0(Scope scope) throws EvaluationException {
+		if (hasFixedParameters(0)) {
+			return execute(scope, new FplValue[0]);
+		}
+		return super.call0(scope);
+	}
+
+	@Override
+	public FplValue call1(Scope scope, FplValue first) throws EvaluationException {
+		if (hasFixedParameters(1)) {
+			return execute(scope, new FplValue[] { FplLazy.make(scope, first) });
+		}
+		return super.call1(scope, first);
+	}
+
+	@Override
+	public FplValue call2(Scope scope, FplValue first, FplValue second) throws EvaluationException {
+		if (hasFixedParameters(2)) {
+			return execute(scope, new FplValue[] { FplLazy.make(scope, first), FplLazy.make(scope, second) });
+		}
+		return super.call2(scope, first, second);
+	}
+
+	@Override
+	public FplValue call3(Scope scope, FplValue first, FplValue second, FplValue third) throws EvaluationException {
+		if (hasFixedParameters(3)) {
+			return execute(scope, new FplValue[] { FplLazy.make(scope, first), FplLazy.make(scope, second),
+					FplLazy.make(scope, third) });
+		}
+		return super.call3(scope, first, second, third);
+	}
+
+	private boolean hasFixedParameters(int count) {
+		return !isVarArg() && getMinimumNumberOfParameters() == count;
+	}
+
+	/**
+	 * @param scope           Scope of the caller.
+	 * @param scopeParameters The parameters, already wrapped for the
+	 *                        {@link ParameterScope}.
+	 */
+	private FplValue execute(Scope scope, FplValue[] scopeParameters) throws EvaluationException {
+		while (true) {
+			ParameterScope callScope = new ParameterScope(getName(), definitionScope, getParameterNameToIndex(),
+					scopeParameters);
+			FplValue result = null;
+			for (int i = 0; i < code.length; i++) {
+				result = code[i] == null ? null : code[i].evaluate(callScope);
+			}
+			if (!(result instanceof TailCall)) {
+				return result;
+			}
+			// Self call in tail position: Next iteration instead of nested call
+			scopeParameters = bindParameters(scope, ((TailCall) result).parameters);
+		}
+	}
+
+	/**
+	 * Is a call of this lambda free of side effects, as long as the parameters
+	 * are? This is the case when the code only calls pure builtin functions or
+	 * other lambdas with pure code and reads parameters of this lambda, see
+	 * {@link FplLazy#makeSpeculative(Scope, FplValue)}.
+	 * 
+	 * @param depth Maximum nesting of expressions and calls.
+	 * @return <code>false</code> if the code is not pure or nested too deep (this
+	 *         includes all recursive lambdas).
+	 */
+	boolean hasPureCode(int depth) {
+		for (FplValue expression : code) {
+			if (!FplLazy.isPureCode(definitionScope, expression, depth)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private FplValue[] bindParameters(final Scope scope, final FplValue[] parameters) {
 		FplValue[] scopeParameters = new FplValue[getNumberOfParameterNames()];
 		int lastNamedIndex = getNumberOfParameterNames() - 1;
 		if (isVarArg()) {
@@ -64,60 +145,19 @@ public class FplLambda extends AbstractFunction {
 				scopeParameters[i] = FplLazy.make(scope, parameters[i]);
 			}
 		}
-		ParameterScope callScope = new ParameterScope(getName(), definitionScope, getParameterNameToIndex(),
-				scopeParameters);
-		FplValue result = null;
-		for (int i = 0; i < code.length; i++) {
-			result = code[i] == null ? null : code[i].evaluate(callScope);
-		}
-		return result;
+		return scopeParameters;
 	}
 
-	private FplValue[] compile(FplValue[] code, Map<String, Integer> parameterMap) {
+	private FplValue[] compile(FplValue[] code, Map<String, Integer> parameterMap, Scope scope) {
 		FplValue[] compiled = new FplValue[code.length];
 		for (int i = 0; i < code.length; i++) {
-			compiled[i] = compile(code[i], parameterMap);
-		}
-		return compiled;
-	}
-
-	private FplValue compile(FplValue code, Map<String, Integer> parameterMap) {
-		if (code instanceof FplList) {
-			FplList list = (FplList) code;
-			Iterator<FplValue> iter = list.iterator();
-			return FplList.fromIterator(new Iterator<FplValue>() {
-				@Override
-				public boolean hasNext() {
-					return iter.hasNext();
-				}
-				
-				@Override
-				public FplValue next() {
-					return compile(iter.next(), parameterMap);
-				}
-			}, list.size());
-		} else {
-			if (code instanceof Symbol) {
-				Symbol s = (Symbol) code;
-				Integer index = parameterMap.get(s.getName());
-				if (index == null) {
-					return s;
-				} else {
-					return new Parameter(s, index);
-				}
-			} else if (code instanceof Parameter) {
-				Parameter p = (Parameter) code;
-				String name = p.getName();
-				Integer index = parameterMap.get(name);
-				if (index == null) {
-					return p.getSymbol();
-				} else {
-					return new Parameter(p.getSymbol(), index);
-				}
+			if (i == code.length - 1) {
+				compiled[i] = Compiler.compileTailPosition(code[i], parameterMap, scope, this);
 			} else {
-				return code;
+				compiled[i] = Compiler.compile(code[i], parameterMap, scope);
 			}
 		}
+		return compiled;
 	}
 
 	@Override
@@ -146,4 +186,26 @@ public class FplLambda extends AbstractFunction {
 		sb.append(")");
 		return sb.toString();
 	}
+
+	/**
+	 * Result of a {@link SelfTailCall}: The parameters for the next
+	 * iteration of {@link FplLambda#callInternal(Scope, FplValue...)}.
+	 */
+	static final class TailCall implements FplValue {
+		private final FplValue[] parameters;
+
+		TailCall(FplValue[] parameters) {
+			this.parameters = parameters;
+		}
+
+		@Override
+		public FplValue evaluate(Scope scope) throws EvaluationException {
+			return this;
+		}
+
+		@Override
+		public String typeName() {
+			return "tail-call";
+		}
+	}
 }
@@ -1,44 +1,127 @@
 package de.codecentric.fpl.datatypes;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Iterator;
+
 import de.codecentric.fpl.EvaluationException;
 import de.codecentric.fpl.data.Scope;
+import de.codecentric.fpl.datatypes.list.BoundCall;
+import de.codecentric.fpl.datatypes.list.FplList;
 
 /**
  * A lazy expression, which will be evaluated on demand.
+ * <p>
+ * Reading an evaluated value needs no lock. Expressions which only read values
+ * ({@link Symbol}, {@link Parameter}) are evaluated without a lock, when two
+ * threads evaluate them at the same time, the first result is published with
+ * compare and set. All other expressions may have side effects, they are
+ * evaluated exactly once.
  */
 public class FplLazy implements FplValue {
-    private Scope scope;
-    private FplValue originalExpression;
-    private boolean evaluated;
-    private FplValue value;
+	/** Marker for a value which has not been evaluated. */
+	private static final FplValue UNEVALUATED = new FplValue() {
+		@Override
+		public FplValue evaluate(Scope scope) throws EvaluationException {
+			return this;
+		}
+
+		@Override
+		public String typeName() {
+			return "unevaluated";
+		}
+	};
+
+	private static final VarHandle VALUE;
+	/** Maximum nesting of expressions checked by {@link #isPure(Scope, FplValue, int)} */
+	private static final int MAX_PURITY_DEPTH = 32;
+
+	static {
+		try {
+			VALUE = MethodHandles.lookup().findVarHandle(FplLazy.class, "value", FplValue.class);
+		} catch (ReflectiveOperationException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+    private final Scope scope;
+    private final FplValue originalExpression;
+    private volatile FplValue value = UNEVALUATED;
+    /** Guarded by <code>this</code>, detects recursive evaluation. */
+    private boolean evaluating;
 
     /**
+     * Arguments which need no evaluation (values which evaluate to themselves,
+     * lazy values) and parameters which are passed on to another function are
+     * returned without creating a new lazy value. For a parameter this is the value bound in the calling function, so the
+     * argument is evaluated at most once, no matter how often it is passed on.
+     * 
      * @param scope Scope for evaluation, not null.
      * @param originalExpression The expression to be evaluated, may be null.
      */
 	public static FplValue make(Scope scope, FplValue originalExpression) {
 		if (originalExpression instanceof FplLazy || originalExpression instanceof EvaluatesToThisValue) {
 			return originalExpression;
-		} else {
-			return new FplLazy(scope, originalExpression);
 		}
+		if (originalExpression instanceof Parameter) {
+			FplValue bound = ((Parameter) originalExpression).lookup(scope);
+			if (bound == null || bound instanceof FplLazy || bound instanceof EvaluatesToThisValue) {
+				return bound;
+			}
+		}
+		return new FplLazy(scope, originalExpression);
+	}
+
+    /**
+     * Like {@link #make(Scope, FplValue)}, but an expression which only calls pure
+     * builtin functions (see {@link AbstractFunction#isPure()}) or lambdas with
+     * pure code (see {@link FplLambda#hasPureCode(int)}) with parameters which are
+     * evaluated already (or pure, too) is evaluated at once. So an accumulator
+     * passed on in a loop does not become a chain of lazy values, one for each
+     * iteration. When the evaluation fails, the value stays lazy and the
+     * exception is thrown when (and if) the value is needed.
+     * 
+     * @param scope Scope for evaluation, not null.
+     * @param originalExpression The expression to be evaluated, may be null.
+     */
+	public static FplValue makeSpeculative(Scope scope, FplValue originalExpression) {
+		FplValue value = make(scope, originalExpression);
+		if (value instanceof FplLazy) {
+			FplLazy lazy = (FplLazy) value;
+			lazy.evaluateIfPure(MAX_PURITY_DEPTH);
+			FplValue v = lazy.value;
+			if (v == null || v instanceof EvaluatesToThisValue) {
+				return v;
+			}
+		}
+		return value;
 	}
 
     /**
+     * Wrap a value which has been evaluated already, so it is not evaluated
+     * again. Only lists and symbols need the wrapper, other values (including
+     * <code>null</code>) are returned as they are.
+     * 
      * @param scope Scope for evaluation, not null.
      * @param expression The expression to be evaluated, may be null.
      */
 	public static FplValue makeEvaluated(Scope scope, FplValue expression) {
-		if (expression instanceof FplLazy || expression instanceof EvaluatesToThisValue) {
+		if (expression == null || expression instanceof FplLazy || expression instanceof EvaluatesToThisValue) {
 			return expression;
 		} else {
-			FplLazy result = new FplLazy(scope, expression);
-			result.evaluated = true;
-			result.value = expression;
-			return result;
+			return new FplLazy(expression);
 		}
 	}
 
+    /**
+     * Constructor for an evaluated value, which does not need a scope.
+     */
+    private FplLazy(FplValue value) {
+        this.scope = null;
+        this.originalExpression = value;
+        this.value = value;
+    }
+
     private FplLazy(Scope scope, FplValue originalExpression) {
         if (scope == null) {
             throw new NullPointerException("scope");
@@ -51,14 +134,124 @@ public class FplLazy implements FplValue {
      * @see FplValue.data.LObject#evaluateResource(lang.data.Scope)
      */
     @Override
-    public synchronized FplValue evaluate(Scope unusedScope) throws EvaluationException {
-    	if (!evaluated) {
-    		evaluated = true;
-    		value = originalExpression == null ? null : originalExpression.evaluate(scope);
+    public FplValue evaluate(Scope unusedScope) throws EvaluationException {
+    	FplValue v = value;
+    	if (v != UNEVALUATED) {
+    		return v;
+    	}
+    	if (originalExpression == null) {
+    		value = null;
+    		return null;
+    	}
+    	if (originalExpression instanceof Symbol || originalExpression instanceof Parameter) {
+    		v = originalExpression.evaluate(scope);
+    		FplValue witness = (FplValue) VALUE.compareAndExchange(this, UNEVALUATED, v);
+    		return witness == UNEVALUATED ? v : witness;
     	}
-    	return value;
+    	return evaluateOnce();
+    }
+
+    private synchronized FplValue evaluateOnce() throws EvaluationException {
+    	if (value == UNEVALUATED && !evaluating) {
+    		// A recursive evaluation (or one which failed before) results in nil.
+    		evaluating = true;
+    		try {
+    			value = originalExpression.evaluate(scope);
+    		} finally {
+    			if (value == UNEVALUATED) {
+    				value = null;
+    			}
+    		}
+    	}
+    	FplValue v = value;
+    	return v == UNEVALUATED ? null : v;
     }
     
+    private void evaluateIfPure(int depth) {
+    	if (value == UNEVALUATED && isPure(scope, originalExpression, depth)) {
+    		try {
+    			VALUE.compareAndSet(this, UNEVALUATED, originalExpression.evaluate(scope));
+    		} catch (EvaluationException e) {
+    			// Stays lazy, fails again when the value is needed.
+    		}
+    	}
+    }
+
+    /**
+     * @param definitionScope Scope where the lambda with the code has been defined.
+     * @param expression      Expression of the code of a lambda.
+     * @param depth           Maximum nesting of expressions and calls.
+     * @return <code>true</code> if the evaluation of <code>expression</code> in a
+     *         call of the lambda has no side effects, as long as the parameters of
+     *         the call don't have them.
+     */
+    static boolean isPureCode(Scope definitionScope, FplValue expression, int depth) {
+    	return isPure(definitionScope, expression, depth, true);
+    }
+
+    private static boolean isPure(Scope scope, FplValue expression, int depth) {
+    	return isPure(scope, expression, depth, false);
+    }
+
+    /**
+     * @param code <code>true</code> for the code of a lambda, where the
+     *             parameters of the lambda are checked by the caller.
+     * @return <code>true</code> if the evaluation of <code>expression</code> has
+     *         no side effects and doesn't depend on values which may change
+     *         (symbols may be redefined, so they are not pure).
+     */
+    private static boolean isPure(Scope scope, FplValue expression, int depth, boolean code) {
+    	if (expression == null || expression instanceof EvaluatesToThisValue) {
+    		return true;
+    	}
+    	if (depth == 0) {
+    		return false;
+    	}
+    	if (code && expression instanceof Parameter) {
+    		return ((Parameter) expression).getDepth() == 0;
+    	}
+    	if (expression instanceof Parameter) {
+    		FplValue bound = ((Parameter) expression).lookup(scope);
+    		if (bound instanceof FplLazy) {
+    			FplLazy lazy = (FplLazy) bound;
+    			lazy.evaluateIfPure(depth - 1);
+    			return lazy.value != UNEVALUATED;
+    		}
+    		return bound == null || bound instanceof EvaluatesToThisValue;
+    	}
+    	if (!(expression instanceof FplList) || ((FplList) expression).isEmpty()
+    			|| !(((FplList) expression).first() instanceof Symbol)) {
+    		return false;
+    	}
+    	FplList call = (FplList) expression;
+    	FplValue function;
+    	if (call instanceof BoundCall) {
+    		function = ((BoundCall) call).resolve(scope);
+    	} else {
+    		function = scope.get(((Symbol) call.first()).getName());
+    	}
+    	if (function instanceof FplLambda) {
+    		// Halving the depth limits the work for lambdas calling themselves more than
+    		// once. A recursive lambda exceeds the depth, so a pure call terminates.
+    		if (!((FplLambda) function).hasPureCode(depth / 2)) {
+    			return false;
+    		}
+    	} else if (!(function instanceof AbstractFunction) || !((AbstractFunction) function).isPure()) {
+    		return false;
+    	} else if (((AbstractFunction) function).getName().equals(AbstractFunction.QUOTE.getName())) {
+    		// The parameter is not evaluated.
+    		return true;
+    	}
+    	Iterator<FplValue> parameters = call.iterator();
+    	parameters.next();
+    	while (parameters.hasNext()) {
+    		if (!isPure(scope, parameters.next(), depth - 1, code)) {
+    			return false;
+    		}
+    	}
+    	return true;
+    }
+
     @Override
     public String typeName() {
     	return originalExpression.typeName();
@@ -69,7 +69,7 @@ public class FplObject extends MapScope implements Function, PositionHolder {
 		final String NL = System.lineSeparator();
 		StringBuilder sb = new StringBuilder();
 		sb.append("{");
-		for (Entry<String, FplValue> entry : map.entrySet()) {
+		for (Entry<String, FplValue> entry : localMap().entrySet()) {
 			sb.append(NL).append("    ");
 			sb.append(entry.getKey()).append(": ");
 			FplValue v = entry.getValue();
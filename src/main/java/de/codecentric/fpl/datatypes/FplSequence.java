@@ -0,0 +1,46 @@
+package de.codecentric.fpl.datatypes;
+
+import java.util.Iterator;
+import java.util.function.Supplier;
+
+import de.codecentric.fpl.datatypes.list.FplList;
+
+/**
+ * A lazy sequence: The elements are computed while the sequence is consumed.
+ * Each consumption starts at the beginning again. Sequences created from other
+ * sequences (e.g. by <code>lazy-map</code>) pull the elements one by one from
+ * their source, so no intermediate lists are created.
+ */
+public class FplSequence implements EvaluatesToThisValue, Iterable<FplValue> {
+	private final Supplier<Iterator<FplValue>> source;
+
+	/**
+	 * @param source Creates a new iterator over the elements for each
+	 *               consumption.
+	 */
+	public FplSequence(Supplier<Iterator<FplValue>> source) {
+		this.source = source;
+	}
+
+	@Override
+	public Iterator<FplValue> iterator() {
+		return source.get();
+	}
+
+	/**
+	 * @return A list with all elements of the sequence.
+	 */
+	public FplList realize() {
+		return FplList.fromNumbers(iterator());
+	}
+
+	@Override
+	public String typeName() {
+		return "sequence";
+	}
+
+	@Override
+	public String toString() {
+		return "<sequence>";
+	}
+}
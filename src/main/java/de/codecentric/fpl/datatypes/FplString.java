@@ -1,11 +1,12 @@
 package de.codecentric.fpl.datatypes;
 
 /**
- * An FPL String
+ * An FPL String. Backed by an immutable {@link String}, so reading the content
+ * doesn't copy, and the JDK stores ASCII/Latin-1 content with one byte per
+ * character.
  */
 public class FplString implements EvaluatesToThisValue, Comparable<FplString> {
-    private final char value[];
-	private int hash;
+    private final String value;
 
 	/**
 	 * @param content Content of String
@@ -22,14 +23,14 @@ public class FplString implements EvaluatesToThisValue, Comparable<FplString> {
         if (content == null) {
             throw new NullPointerException("content null");
         }
-        value = content.toCharArray();
+        value = content;
     }
 
     /**
      * @return Content, never null.
      */
     public String getContent() {
-        return new String(value);
+        return value;
     }
 
     /**
@@ -37,16 +38,7 @@ public class FplString implements EvaluatesToThisValue, Comparable<FplString> {
      */
     @Override
     public int hashCode() {
-        int h = hash;
-        if (h == 0 && value.length > 0) {
-            char val[] = value;
-
-            for (int i = 0; i < value.length; i++) {
-                h = 31 * h + val[i];
-            }
-            hash = h;
-        }
-        return h;
+        return value.hashCode();
     }
 
     /**
@@ -58,19 +50,7 @@ public class FplString implements EvaluatesToThisValue, Comparable<FplString> {
             return true;
         }
         if (obj instanceof FplString) {
-            FplString anotherString = (FplString)obj;
-            int n = value.length;
-            if (n == anotherString.value.length) {
-                char v1[] = value;
-                char v2[] = anotherString.value;
-                int i = 0;
-                while (n-- != 0) {
-                    if (v1[i] != v2[i])
-                        return false;
-                    i++;
-                }
-                return true;
-            }
+            return value.equals(((FplString) obj).value);
         }
         return false;
     }
@@ -87,10 +67,9 @@ public class FplString implements EvaluatesToThisValue, Comparable<FplString> {
     public String toString() {
         StringBuilder sb = new StringBuilder();
         sb.append('"');
-        String content = getContent();
-        int length = content.length();
+        int length = value.length();
         for (int i = 0; i < length; i++) {
-            char ch = content.charAt(i);
+            char ch = value.charAt(i);
             if (ch == '"') {
                 sb.append("\\\"");
             } else if (ch == '\t') {
@@ -109,21 +88,6 @@ public class FplString implements EvaluatesToThisValue, Comparable<FplString> {
     
 	@Override
 	public int compareTo(FplString other) {
-        int len1 = value.length;
-        int len2 = other.value.length;
-        int lim = Math.min(len1, len2);
-        char v1[] = value;
-        char v2[] = other.value;
-
-        int k = 0;
-        while (k < lim) {
-            char c1 = v1[k];
-            char c2 = v2[k];
-            if (c1 != c2) {
-                return c1 - c2;
-            }
-            k++;
-        }
-        return len1 - len2;
+        return value.compareTo(other.value);
 	}
 }
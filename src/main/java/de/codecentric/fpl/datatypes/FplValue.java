@@ -26,6 +26,9 @@ public interface FplValue {
 		if (value instanceof Symbol) {
 			return ((Symbol)value).getPosition();
 		}
+		if (value instanceof Parameter) {
+			return ((Parameter)value).getPosition();
+		}
 		if (value instanceof FplList) {
 			for (FplValue v : (FplList)value) {
 				Position p = position(v);
@@ -18,4 +18,46 @@ public interface Function extends EvaluatesToThisValue {
 	 *             If execution fails.
 	 */
 	public FplValue call(Scope scope, FplValue... parameters) throws EvaluationException;
+
+	/**
+	 * Call without parameters. Functions with a fixed number of parameters may
+	 * override this (and the other <code>callX</code> methods) with a version
+	 * which does not need a parameter array.
+	 * 
+	 * @param scope Evaluation scope.
+	 * @return The result of the function.
+	 * @throws EvaluationException If execution fails.
+	 * @see #call(Scope, FplValue...)
+	 */
+	public default FplValue call0(Scope scope) throws EvaluationException {
+		return call(scope, new FplValue[0]);
+	}
+
+	/**
+	 * Call with one parameter.
+	 * 
+	 * @see #call(Scope, FplValue...)
+	 */
+	public default FplValue call1(Scope scope, FplValue first) throws EvaluationException {
+		return call(scope, new FplValue[] { first });
+	}
+
+	/**
+	 * Call with two parameters.
+	 * 
+	 * @see #call(Scope, FplValue...)
+	 */
+	public default FplValue call2(Scope scope, FplValue first, FplValue second) throws EvaluationException {
+		return call(scope, new FplValue[] { first, second });
+	}
+
+	/**
+	 * Call with three parameters.
+	 * 
+	 * @see #call(Scope, FplValue...)
+	 */
+	public default FplValue call3(Scope scope, FplValue first, FplValue second, FplValue third)
+			throws EvaluationException {
+		return call(scope, new FplValue[] { first, second, third });
+	}
 }
@@ -1,22 +1,37 @@
 package de.codecentric.fpl.datatypes;
 
 import de.codecentric.fpl.EvaluationException;
+import de.codecentric.fpl.data.MapScope;
 import de.codecentric.fpl.data.ParameterScope;
+import de.codecentric.fpl.data.PositionHolder;
 import de.codecentric.fpl.data.Scope;
+import de.codecentric.fpl.parser.Position;
 
-public class Parameter implements Named {
+/**
+ * Reference to a parameter by its lexical address: <code>depth</code> is the
+ * number of scopes between the {@link ParameterScope} of the current call and
+ * the {@link ParameterScope} with the parameter (0 for a parameter of the
+ * current function, &gt; 0 for parameters of enclosing functions),
+ * <code>index</code> the position of the parameter.
+ */
+public class Parameter implements Named, PositionHolder {
 	private Symbol symbol;
+	private int depth;
 	private int index;
 
 	public Parameter(Symbol symbol, int index) {
+		this(symbol, 0, index);
+	}
+
+	public Parameter(Symbol symbol, int depth, int index) {
 		this.symbol = symbol;
+		this.depth = depth;
 		this.index = index;
 	}
 
 	@Override
 	public FplValue evaluate(Scope scope) throws EvaluationException {
-		ParameterScope paramScope = findNextParameterScope(scope);
-		FplValue value = paramScope.getParameter(index);
+		FplValue value = lookup(scope);
 		if (value instanceof FplLazy) {
 			value = value.evaluate(scope);
 		}
@@ -24,8 +39,7 @@ public class Parameter implements Named {
 	}
 
 	public FplValue quote(Scope scope) throws EvaluationException {
-		ParameterScope paramScope = findNextParameterScope(scope);
-		FplValue parameter = paramScope.getParameter(index);
+		FplValue parameter = lookup(scope);
 		if (parameter instanceof FplLazy) {
 			return ((FplLazy) parameter).getOriginalExpression();
 		} else {
@@ -42,6 +56,26 @@ public class Parameter implements Named {
 		return symbol.getName();
 	}
 
+	@Override
+	public Position getPosition() {
+		return symbol.getPosition();
+	}
+
+	/**
+	 * @return 0 for a parameter of the current function, number of scopes to the
+	 *         enclosing function for others.
+	 */
+	public int getDepth() {
+		return depth;
+	}
+
+	/**
+	 * @return Position in the parameter list.
+	 */
+	public int getIndex() {
+		return index;
+	}
+
 	@Override
 	public String toString() {
 		return symbol.getName();
@@ -51,7 +85,22 @@ public class Parameter implements Named {
 	public String typeName() {
 		return "parameter";
 	}
-	
+
+	/**
+	 * @return The value bound to the parameter, without evaluation.
+	 */
+	FplValue lookup(Scope scope) throws EvaluationException {
+		if (depth == 0) {
+			return findNextParameterScope(scope).getParameter(index);
+		}
+		ParameterScope paramScope = findOuterParameterScope(scope);
+		if (paramScope == null) {
+			// The parameter has been shadowed by a local value, lookup by name
+			return scope.get(symbol.getName());
+		}
+		return paramScope.getParameter(index);
+	}
+
 	private ParameterScope findNextParameterScope(Scope scope) throws EvaluationException {
 		while (scope != null && !(scope instanceof ParameterScope)) {
 			scope = scope.getNext();
@@ -61,4 +110,32 @@ public class Parameter implements Named {
 		}
 		return (ParameterScope) scope;
 	}
+
+	/**
+	 * @return The scope of the enclosing function or <code>null</code> when one of
+	 *         the scopes in between may contain a value with the same name.
+	 */
+	private ParameterScope findOuterParameterScope(Scope scope) throws EvaluationException {
+		String name = symbol.getName();
+		while (scope != null && !(scope instanceof ParameterScope)) {
+			if (!isTransparent(scope, name)) {
+				return null;
+			}
+			scope = scope.getNext();
+		}
+		if (scope == null) {
+			throw new EvaluationException("not nested in ParameterScope");
+		}
+		for (int i = 0; i < depth; i++) {
+			if (!isTransparent(scope, name)) {
+				return null;
+			}
+			scope = scope.getNext();
+		}
+		return scope instanceof ParameterScope ? (ParameterScope) scope : null;
+	}
+
+	private static boolean isTransparent(Scope scope, String name) {
+		return scope instanceof MapScope && ((MapScope) scope).isTransparent(name);
+	}
 }
@@ -0,0 +1,38 @@
+package de.codecentric.fpl.datatypes;
+
+import de.codecentric.fpl.EvaluationException;
+import de.codecentric.fpl.data.Scope;
+import de.codecentric.fpl.datatypes.list.FunctionCall;
+
+/**
+ * A call in tail position of a lambda, where the function expression is the
+ * name of the lambda. When it evaluates to the lambda itself, the parameters
+ * are handed back to {@link FplLambda} as lazy values (see
+ * {@link FplLazy#makeSpeculative(Scope, FplValue)}), which continues with the
+ * next iteration instead of a nested call. Otherwise it is a normal function
+ * call.
+ */
+class SelfTailCall extends FunctionCall {
+	private final FplLambda lambda;
+
+	/**
+	 * @param call   The compiled call.
+	 * @param lambda The lambda containing the call.
+	 */
+	SelfTailCall(FunctionCall call, FplLambda lambda) {
+		super(call);
+		this.lambda = lambda;
+	}
+
+	@Override
+	public FplValue evaluate(Scope scope) throws EvaluationException {
+		if (getFunction().evaluate(scope) != lambda) {
+			return super.evaluate(scope);
+		}
+		FplValue[] parameters = new FplValue[getNumberOfParameters()];
+		for (int i = 0; i < parameters.length; i++) {
+			parameters[i] = FplLazy.makeSpeculative(scope, getParameter(i));
+		}
+		return new FplLambda.TailCall(parameters);
+	}
+}
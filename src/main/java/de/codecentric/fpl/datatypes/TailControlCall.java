@@ -0,0 +1,45 @@
+package de.codecentric.fpl.datatypes;
+
+import de.codecentric.fpl.EvaluationException;
+import de.codecentric.fpl.data.Scope;
+import de.codecentric.fpl.datatypes.list.BoundCall;
+import de.codecentric.fpl.datatypes.list.FplList;
+import de.codecentric.fpl.datatypes.list.FunctionCall;
+
+/**
+ * A call of a control structure in tail position of a lambda, where parameters
+ * in tail position contain {@link SelfTailCall}s. These parameters may only be
+ * passed to the control structure they have been compiled for, so the function
+ * is checked on each call: When the symbol resolves to another function (e.g.
+ * after a redefinition), the call is evaluated as it was compiled without
+ * marking tail calls.
+ */
+class TailControlCall extends FunctionCall {
+	private final AbstractFunction control;
+	private final FunctionCall plain;
+
+	/**
+	 * @param marked  The call with marked tail calls.
+	 * @param control The control structure the parameters are marked for.
+	 * @param plain   The call without marked tail calls.
+	 */
+	TailControlCall(FplList marked, AbstractFunction control, FunctionCall plain) {
+		super(marked);
+		this.control = control;
+		this.plain = plain;
+	}
+
+	@Override
+	public FplValue evaluate(Scope scope) throws EvaluationException {
+		FplValue function;
+		if (plain instanceof BoundCall) {
+			function = ((BoundCall) plain).resolve(scope);
+		} else {
+			function = scope.get(((Symbol) getFunction()).getName());
+		}
+		if (function == control) {
+			return call(scope, control);
+		}
+		return plain.evaluate(scope);
+	}
+}
@@ -1,8 +1,8 @@
 package de.codecentric.fpl.datatypes;
 
+import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -20,6 +20,8 @@ public class UnWrapper {
 			value = (FplValue) obj;
 		} else if (obj instanceof Byte || obj instanceof Short || obj instanceof Integer || obj instanceof Long) {
 			value = FplInteger.valueOf(((Number) obj).longValue());
+		} else if (obj instanceof BigInteger) {
+			value = FplBigInteger.valueOf((BigInteger) obj);
 		} else if (obj instanceof Float || obj instanceof Double) {
 			value = new FplDouble(((Number) obj).doubleValue());
 		} else if (obj instanceof Character) {
@@ -42,35 +44,20 @@ public class UnWrapper {
 	}
 
 	private static FplList wrap(List<?> list) {
-		Iterator<?> iter = list.iterator();
-		return FplList.fromIterator(new Iterator<FplValue>() {
-
-			@Override
-			public boolean hasNext() {
-				return iter.hasNext();
-			}
-
-			@Override
-			public FplValue next() {
-				return wrap(iter.next());
-			}
-		}, list.size());
+		FplValue[] values = new FplValue[list.size()];
+		int i = 0;
+		for (Object o : list) {
+			values[i++] = wrap(o);
+		}
+		return FplList.fromArrayTakingOwnership(values);
 	}
 
 	private static FplList wrap(Object[] a) {
-		return FplList.fromIterator(new Iterator<FplValue>() {
-			int i = 0;
-
-			@Override
-			public boolean hasNext() {
-				return i < a.length;
-			}
-
-			@Override
-			public FplValue next() {
-				return wrap(a[i++]);
-			}
-		}, a.length);
+		FplValue[] values = new FplValue[a.length];
+		for (int i = 0; i < a.length; i++) {
+			values[i] = wrap(a[i]);
+		}
+		return FplList.fromArrayTakingOwnership(values);
 	}
 
 	private static FplObject wrap(Map<?, ?> map) {
@@ -100,6 +87,8 @@ public class UnWrapper {
 			u = Double.valueOf(((FplDouble) p).getValue());
 		} else if (p instanceof FplInteger) {
 			u = Long.valueOf(((FplInteger) p).getValue());
+		} else if (p instanceof FplBigInteger) {
+			u = ((FplBigInteger) p).getValue();
 		} else if (p instanceof FplList) {
 			u = unwrap((FplList) p);
 		} else if (p instanceof FplObject) {
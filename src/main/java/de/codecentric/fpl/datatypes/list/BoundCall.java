@@ -0,0 +1,90 @@
+package de.codecentric.fpl.datatypes.list;
+
+import de.codecentric.fpl.EvaluationException;
+import de.codecentric.fpl.data.GlobalScope;
+import de.codecentric.fpl.data.Scope;
+import de.codecentric.fpl.datatypes.FplValue;
+import de.codecentric.fpl.datatypes.Function;
+import de.codecentric.fpl.datatypes.Symbol;
+
+/**
+ * A function call where the function has been resolved in the
+ * {@link GlobalScope} at compile time. As long as the symbol is not shadowed
+ * and the {@link GlobalScope#getBindingVersion()} is unchanged, the function
+ * is called without looking up the symbol. After a change of the version, the
+ * symbol is resolved again. When it is shadowed, it behaves like a
+ * {@link FunctionCall}.
+ */
+public class BoundCall extends FunctionCall {
+	final GlobalScope global;
+	final String name;
+	private volatile Binding binding;
+
+	/**
+	 * @param call           The call, the function expression must be a symbol
+	 *                       watched with
+	 *                       {@link GlobalScope#watchBinding(String)}.
+	 * @param global         The scope in which the symbol has been resolved.
+	 * @param bound          The value the symbol resolved to.
+	 * @param bindingVersion {@link GlobalScope#getBindingVersion()} before the
+	 *                       symbol has been resolved.
+	 */
+	public BoundCall(FunctionCall call, GlobalScope global, FplValue bound, long bindingVersion) {
+		super(call);
+		this.global = global;
+		this.name = ((Symbol) call.getFunction()).getName();
+		this.binding = new Binding(bound, bindingVersion);
+	}
+
+	@Override
+	public FplValue evaluate(Scope scope) throws EvaluationException {
+		FplValue bound = resolve(scope);
+		if (bound instanceof Function) {
+			return call(scope, (Function) bound);
+		}
+		return super.evaluate(scope);
+	}
+
+	/**
+	 * @param scope Scope of the call.
+	 * @return The value of the symbol in <code>scope</code>, may be
+	 *         <code>null</code>.
+	 */
+	public FplValue resolve(Scope scope) {
+		return global.isStillVisibleFrom(scope, name) ? binding().value : scope.get(name);
+	}
+
+	/**
+	 * @return The binding for the current {@link GlobalScope#getBindingVersion()}.
+	 */
+	Binding binding() {
+		Binding b = binding;
+		long version = global.getBindingVersion();
+		if (b.version != version) {
+			b = new Binding(global.getLocal(name), version);
+			binding = b;
+		}
+		return b;
+	}
+
+	/**
+	 * @return The value the symbol has been resolved to most recently.
+	 */
+	public FplValue getBound() {
+		return binding.value;
+	}
+
+	/**
+	 * The value of the symbol in the global scope, valid for one binding
+	 * version.
+	 */
+	static class Binding {
+		final FplValue value;
+		final long version;
+
+		Binding(FplValue value, long version) {
+			this.value = value;
+			this.version = version;
+		}
+	}
+}
@@ -0,0 +1,59 @@
+package de.codecentric.fpl.datatypes.list;
+
+import de.codecentric.fpl.EvaluationException;
+import de.codecentric.fpl.data.GlobalScope;
+import de.codecentric.fpl.data.Scope;
+import de.codecentric.fpl.datatypes.FplValue;
+import de.codecentric.fpl.datatypes.Function;
+
+/**
+ * A call of a pure function which has been evaluated at compile time. As long
+ * as the symbol is not shadowed and the
+ * {@link GlobalScope#getBindingVersion()} is unchanged, evaluation returns the
+ * computed value. After a change of the version, the call is evaluated again
+ * when the symbol still resolves to the same function, otherwise it behaves
+ * like a {@link BoundCall}.
+ */
+public class FoldedCall extends BoundCall {
+	private final Function folded;
+	private volatile Binding value;
+
+	/**
+	 * @param call           The call, the function expression must be a symbol
+	 *                       watched with
+	 *                       {@link GlobalScope#watchBinding(String)}.
+	 * @param global         The scope in which the symbol has been resolved.
+	 * @param folded         The function the symbol resolved to.
+	 * @param value          Result of the call.
+	 * @param bindingVersion {@link GlobalScope#getBindingVersion()} before the
+	 *                       symbol has been resolved.
+	 */
+	public FoldedCall(FunctionCall call, GlobalScope global, Function folded, FplValue value, long bindingVersion) {
+		super(call, global, folded, bindingVersion);
+		this.folded = folded;
+		this.value = new Binding(value, bindingVersion);
+	}
+
+	@Override
+	public FplValue evaluate(Scope scope) throws EvaluationException {
+		if (global.isStillVisibleFrom(scope, name)) {
+			Binding b = binding();
+			if (b.value == folded) {
+				Binding v = value;
+				if (v.version != b.version) {
+					v = new Binding(call(scope, folded), b.version);
+					value = v;
+				}
+				return v.value;
+			}
+		}
+		return super.evaluate(scope);
+	}
+
+	/**
+	 * @return The value computed most recently.
+	 */
+	public FplValue getValue() {
+		return value.value;
+	}
+}
@@ -6,15 +6,24 @@ import static java.lang.System.arraycopy;
 import static java.util.Arrays.copyOf;
 import static java.util.Arrays.copyOfRange;
 
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import de.codecentric.fpl.EvaluationException;
 import de.codecentric.fpl.FplEngine;
 import de.codecentric.fpl.data.Scope;
 import de.codecentric.fpl.datatypes.AbstractFunction;
+import de.codecentric.fpl.datatypes.FplDouble;
+import de.codecentric.fpl.datatypes.FplInteger;
 import de.codecentric.fpl.datatypes.FplValue;
+import de.codecentric.fpl.datatypes.Function;
 import de.codecentric.fpl.datatypes.Named;
 import de.codecentric.fpl.parser.Position;
 
@@ -35,18 +44,123 @@ public class FplList implements FplValue, Iterable<FplValue> {
 		}
 	};
 
-	private static final int BASE_SIZE = 8;
+	static final int BASE_SIZE = 8;
 	private static final int FACTOR = 4;
+	/**
+	 * Lists with more elements are converted to a {@link Rope} when elements are
+	 * replaced.
+	 */
+	static final int ROPE_THRESHOLD = 1024;
+	/**
+	 * Sub lists with fewer elements are copied, larger ones are views sharing the
+	 * elements of their base list.
+	 */
+	static final int MIN_VIEW_SIZE = 32;
+	/**
+	 * A view is only created when it has at least 1 / VIEW_RATIO of the elements of
+	 * its base list, otherwise the (much smaller) sub list is copied, so it does not
+	 * keep the whole base list alive.
+	 */
+	static final int VIEW_RATIO = 8;
+	/** Estimated size of a list object (header and fields), in bytes. */
+	static final int OBJECT_BYTES = 32;
+	static final int ARRAY_HEADER_BYTES = 16;
+	static final int REFERENCE_BYTES = 4;
 
+	/** Buckets with the elements, <code>null</code> for lists of primitive numbers, ropes or views. */
 	private final FplValue[][] shape;
+	/** Storage of a list without {@link #shape}, otherwise <code>null</code>. */
+	private final ListStorage storage;
+	private final int size;
+	/**
+	 * Index of the first element of each bucket, computed on demand for lists with
+	 * more than one bucket.
+	 */
+	private volatile int[] offsets;
+	/** Cached {@link #hashCode()}, 0 when not computed yet. */
+	private volatile int hash;
 
 	// private because there is EMPTY_LIST
 	private FplList() {
 		shape = new FplValue[0][];
+		storage = null;
+		size = 0;
 	}
 
-	private FplList(FplValue[][] data) {
+	FplList(FplValue[][] data) {
 		shape = data;
+		storage = null;
+		int count = 0;
+		for (FplValue[] bucket : data) {
+			count += bucket.length;
+		}
+		size = count;
+	}
+
+	private FplList(ListStorage storage, int size) {
+		shape = null;
+		this.storage = storage;
+		this.size = size;
+	}
+
+	private FplList(long[] values) {
+		this(new ListStorage.LongArray(values), values.length);
+	}
+
+	private FplList(double[] values) {
+		this(new ListStorage.DoubleArray(values), values.length);
+	}
+
+	private FplList(Rope rope) {
+		this(new ListStorage.RopeTree(rope), rope.size);
+	}
+
+	private FplList(FplList base, int offset, int size) {
+		this(new ListStorage.View(base, offset), size);
+	}
+
+	private static FplList fromRope(Rope rope) {
+		return rope == null ? EMPTY_LIST : new FplList(rope);
+	}
+
+	/**
+	 * @return The rope of a list stored as rope, otherwise <code>null</code>.
+	 */
+	private Rope rope() {
+		return storage instanceof ListStorage.RopeTree ? ((ListStorage.RopeTree) storage).rope : null;
+	}
+
+	/**
+	 * @return The storage of a view, otherwise <code>null</code>.
+	 */
+	private ListStorage.View view() {
+		return storage instanceof ListStorage.View ? (ListStorage.View) storage : null;
+	}
+
+	/**
+	 * @return The elements of a list of integers, otherwise <code>null</code>.
+	 */
+	private long[] longs() {
+		return storage instanceof ListStorage.LongArray ? ((ListStorage.LongArray) storage).values : null;
+	}
+
+	/**
+	 * @return The elements of a list of doubles, otherwise <code>null</code>.
+	 */
+	private double[] doubles() {
+		return storage instanceof ListStorage.DoubleArray ? ((ListStorage.DoubleArray) storage).values : null;
+	}
+
+	/**
+	 * @return The elements of this list as rope, <code>null</code> for the empty
+	 *         list.
+	 */
+	private Rope toRope() {
+		Rope rope = rope();
+		if (rope != null) {
+			return rope;
+		}
+		return Rope.fromShape(shape());
 	}
 
 	/**
@@ -96,20 +210,32 @@ public class FplList implements FplValue, Iterable<FplValue> {
 		if (list.isEmpty()) {
 			return EMPTY_LIST;
 		} else {
-			FplValue[] values = list.toArray(new FplValue[list.size()]);
-			FplValue[][] data = new FplValue[1][];
-			data[0] = values;
-			return new FplList(data);
+			return fromArrayTakingOwnership(list.toArray(new FplValue[list.size()]));
 		}
 	}
 
+	/**
+	 * Create a list from an array without copying it.
+	 *
+	 * @param values The elements. The list takes ownership of the array, it must
+	 *               not be changed afterwards.
+	 */
+	public static FplList fromArrayTakingOwnership(FplValue[] values) {
+		if (values.length == 0) {
+			return EMPTY_LIST;
+		}
+		FplValue[][] data = new FplValue[1][];
+		data[0] = values;
+		return new FplList(data);
+	}
+
 	public static FplList fromIterator(Iterator<FplValue> iter, int size) {
 		if (iter.hasNext()) {
 			int[] bucketSizes = computeBucketSizes(size);
-			FplValue[][] shape = new FplValue[bucketSizes.length][];
-			for (int bucketIdx = 0; bucketIdx < shape.length; bucketIdx++) {
+			FplValue[][] data = new FplValue[bucketSizes.length][];
+			for (int bucketIdx = 0; bucketIdx < data.length; bucketIdx++) {
 				FplValue[] bucket = new FplValue[bucketSizes[bucketIdx]];
-				shape[bucketIdx] = bucket;
+				data[bucketIdx] = bucket;
 				for (int inBucketIdx = 0; inBucketIdx < bucket.length; inBucketIdx++) {
 					bucket[inBucketIdx] = iter.next();
 				}
@@ -117,7 +243,7 @@ public class FplList implements FplValue, Iterable<FplValue> {
 			if (iter.hasNext()) {
 				throw new IllegalArgumentException("Iterator conatins too much elements");
 			}
-			return new FplList(shape);
+			return new FplList(data);
 		} else {
 			return EMPTY_LIST;
 		}
@@ -158,6 +284,110 @@ public class FplList implements FplValue, Iterable<FplValue> {
 		}
 	}
 
+	/**
+	 * Create a list of integers, stored without boxing.
+	 *
+	 * @param values The values, the list takes ownership of the array (it must not
+	 *               be changed afterwards).
+	 */
+	public static FplList fromLongs(long[] values) {
+		return values.length == 0 ? EMPTY_LIST : new FplList(values);
+	}
+
+	/**
+	 * Create a list of doubles, stored without boxing.
+	 *
+	 * @param values The values, the list takes ownership of the array (it must not
+	 *               be changed afterwards).
+	 */
+	public static FplList fromDoubles(double[] values) {
+		return values.length == 0 ? EMPTY_LIST : new FplList(values);
+	}
+
+	/**
+	 * Like {@link #fromIterator(Iterator)}, but when all elements are integers (or
+	 * all are doubles), they are stored in a primitive array and boxed on access.
+	 */
+	public static FplList fromNumbers(Iterator<FplValue> iter) {
+		return fromNumbers(iter, BASE_SIZE);
+	}
+
+	/**
+	 * Like {@link #fromIterator(Iterator)}, but when all elements are integers (or
+	 * all are doubles), they are stored in a primitive array and boxed on access.
+	 *
+	 * @param iter     Source of the elements.
+	 * @param sizeHint Expected number of elements.
+	 */
+	public static FplList fromNumbers(Iterator<FplValue> iter, int sizeHint) {
+		if (!iter.hasNext()) {
+			return EMPTY_LIST;
+		}
+		FplValue value = iter.next();
+		int count = 0;
+		if (value instanceof FplInteger) {
+			long[] values = new long[Math.max(sizeHint, 1)];
+			while (true) {
+				if (count == values.length) {
+					values = copyOf(values, count + count / 2 + 1);
+				}
+				values[count++] = ((FplInteger) value).getValue();
+				if (!iter.hasNext()) {
+					return new FplList(count == values.length ? values : copyOf(values, count));
+				}
+				value = iter.next();
+				if (!(value instanceof FplInteger)) {
+					return fromIterator(resume(new FplList(copyOf(values, count)), value, iter));
+				}
+			}
+		} else if (value instanceof FplDouble) {
+			double[] values = new double[Math.max(sizeHint, 1)];
+			while (true) {
+				if (count == values.length) {
+					values = copyOf(values, count + count / 2 + 1);
+				}
+				values[count++] = ((FplDouble) value).getValue();
+				if (!iter.hasNext()) {
+					return new FplList(count == values.length ? values : copyOf(values, count));
+				}
+				value = iter.next();
+				if (!(value instanceof FplDouble)) {
+					return fromIterator(resume(new FplList(copyOf(values, count)), value, iter));
+				}
+			}
+		} else {
+			return fromIterator(resume(EMPTY_LIST, value, iter));
+		}
+	}
+
+	/**
+	 * @return Iterator over the elements of <code>start</code>, followed by
+	 *         <code>value</code> and the rest of <code>iter</code>.
+	 */
+	private static Iterator<FplValue> resume(FplList start, FplValue value, Iterator<FplValue> iter) {
+		return new Iterator<FplValue>() {
+			Iterator<FplValue> startIter = start.iterator();
+			boolean valuePending = true;
+
+			@Override
+			public boolean hasNext() {
+				return startIter.hasNext() || valuePending || iter.hasNext();
+			}
+
+			@Override
+			public FplValue next() {
+				if (startIter.hasNext()) {
+					return startIter.next();
+				}
+				if (valuePending) {
+					valuePending = false;
+					return value;
+				}
+				return iter.next();
+			}
+		};
+	}
+
 	/**
 	 * Create a list.
 	 *
@@ -192,6 +422,9 @@ public class FplList implements FplValue, Iterable<FplValue> {
 	 */
 	public FplValue first() throws EvaluationException {
 		checkNotEmpty();
+		if (shape == null) {
+			return storage.get(0);
+		}
 		return shape[0][0];
 	}
 
@@ -201,6 +434,9 @@ public class FplList implements FplValue, Iterable<FplValue> {
 	 */
 	public FplValue last() throws EvaluationException {
 		checkNotEmpty();
+		if (shape == null) {
+			return storage.get(size - 1);
+		}
 		FplValue[] lastBucket = shape[shape.length - 1];
 		return lastBucket[lastBucket.length - 1];
 	}
@@ -211,16 +447,19 @@ public class FplList implements FplValue, Iterable<FplValue> {
 	 */
 	public FplList removeFirst() throws EvaluationException {
 		checkNotEmpty();
-		if (shape[0].length == 1) {
-			return new FplList(copyOfRange(shape, 1, shape.length));
+		if (shape == null) {
+			return subList(1, size);
+		}
+		if (shape()[0].length == 1) {
+			return new FplList(copyOfRange(shape(), 1, shape().length));
 		}
-		if (shape[0].length <= BASE_SIZE + 1) {
-			FplValue[][] bucketsDst = copyOf(shape, shape.length);
-			bucketsDst[0] = copyOfRange(shape[0], 1, shape[0].length);
+		if (shape()[0].length <= BASE_SIZE + 1) {
+			FplValue[][] bucketsDst = copyOf(shape(), shape().length);
+			bucketsDst[0] = copyOfRange(shape()[0], 1, shape()[0].length);
 			return new FplList(bucketsDst);
 		}
 		// First bucket is too large, split it according "ideal" shape
-		int count = shape[0].length - 1;
+		int count = shape()[0].length - 1;
 		int additionalBuckets = -1;
 		int bucketFillSize = BASE_SIZE / 2;
 		while (count > 0) {
@@ -229,26 +468,26 @@ public class FplList implements FplValue, Iterable<FplValue> {
 			bucketFillSize *= FACTOR;
 		}
 
-		FplValue[][] bucketsDst = new FplValue[shape.length + additionalBuckets][];
+		FplValue[][] bucketsDst = new FplValue[shape().length + additionalBuckets][];
 		bucketFillSize = BASE_SIZE / 2;
-		bucketsDst[0] = copyOfRange(shape[0], 1, 1 + bucketFillSize);
+		bucketsDst[0] = copyOfRange(shape()[0], 1, 1 + bucketFillSize);
 
 		int dstIdx = 1;
-		count = shape[0].length - 1 - bucketFillSize;
+		count = shape()[0].length - 1 - bucketFillSize;
 		int inBucketIdx = bucketFillSize + 1;
 		while (count > 0) {
 			bucketFillSize *= FACTOR;
 			if (bucketFillSize > count) {
 				bucketFillSize = count;
 			}
-			bucketsDst[dstIdx] = copyOfRange(shape[0], inBucketIdx, inBucketIdx + bucketFillSize);
+			bucketsDst[dstIdx] = copyOfRange(shape()[0], inBucketIdx, inBucketIdx + bucketFillSize);
 			dstIdx++;
 			inBucketIdx += bucketFillSize;
 			count -= bucketFillSize;
 		}
 		int srcIdx = 1;
 		while (dstIdx < bucketsDst.length) {
-			bucketsDst[dstIdx++] = shape[srcIdx++];
+			bucketsDst[dstIdx++] = shape()[srcIdx++];
 		}
 		return new FplList(bucketsDst);
 	}
@@ -259,16 +498,19 @@ public class FplList implements FplValue, Iterable<FplValue> {
 	 */
 	public FplList removeLast() throws EvaluationException {
 		checkNotEmpty();
-		int lastIdx = shape.length - 1;
-		if (shape[lastIdx].length == 1) {
-			return new FplList(copyOf(shape, shape.length - 1));
+		if (shape == null) {
+			return subList(0, size - 1);
 		}
-		if (shape[lastIdx].length <= BASE_SIZE + 1) {
-			FplValue[][] bucketsDst = copyOf(shape, shape.length);
-			bucketsDst[lastIdx] = copyOf(shape[lastIdx], shape[lastIdx].length - 1);
+		int lastIdx = shape().length - 1;
+		if (shape()[lastIdx].length == 1) {
+			return new FplList(copyOf(shape(), shape().length - 1));
+		}
+		if (shape()[lastIdx].length <= BASE_SIZE + 1) {
+			FplValue[][] bucketsDst = copyOf(shape(), shape().length);
+			bucketsDst[lastIdx] = copyOf(shape()[lastIdx], shape()[lastIdx].length - 1);
 			return new FplList(bucketsDst);
 		}
-		int count = shape[lastIdx].length - 1;
+		int count = shape()[lastIdx].length - 1;
 		int additionalBuckets = -1;
 		int bucketFillSize = BASE_SIZE / 2;
 		while (count > 0) {
@@ -277,27 +519,27 @@ public class FplList implements FplValue, Iterable<FplValue> {
 			bucketFillSize *= FACTOR;
 		}
 
-		FplValue[][] bucketsDst = new FplValue[shape.length + additionalBuckets][];
+		FplValue[][] bucketsDst = new FplValue[shape().length + additionalBuckets][];
 		bucketFillSize = BASE_SIZE / 2;
-		int dstIdx = shape.length + additionalBuckets - 1;
-		int inBucketIdx = shape[lastIdx].length - bucketFillSize - 1;
-		bucketsDst[dstIdx] = copyOfRange(shape[lastIdx], inBucketIdx, inBucketIdx + bucketFillSize);
+		int dstIdx = shape().length + additionalBuckets - 1;
+		int inBucketIdx = shape()[lastIdx].length - bucketFillSize - 1;
+		bucketsDst[dstIdx] = copyOfRange(shape()[lastIdx], inBucketIdx, inBucketIdx + bucketFillSize);
 
 		dstIdx--;
-		count = shape[lastIdx].length - 1 - bucketFillSize;
+		count = shape()[lastIdx].length - 1 - bucketFillSize;
 		while (count > 0) {
 			bucketFillSize *= FACTOR;
 			if (bucketFillSize > count) {
 				bucketFillSize = count;
 			}
 			inBucketIdx -= bucketFillSize;
-			bucketsDst[dstIdx] = copyOfRange(shape[lastIdx], inBucketIdx, inBucketIdx + bucketFillSize);
+			bucketsDst[dstIdx] = copyOfRange(shape()[lastIdx], inBucketIdx, inBucketIdx + bucketFillSize);
 			dstIdx--;
 			count -= bucketFillSize;
 		}
 		lastIdx--;
 		while (dstIdx >= 0) {
-			bucketsDst[dstIdx--] = shape[lastIdx--];
+			bucketsDst[dstIdx--] = shape()[lastIdx--];
 		}
 		return new FplList(bucketsDst);
 	}
@@ -309,20 +551,8 @@ public class FplList implements FplValue, Iterable<FplValue> {
 	 *                             0 or &gt;= {@link #size()}.
 	 */
 	public FplValue get(int position) throws EvaluationException {
-		checkNotEmpty();
-		if (position < 0) {
-			throw new EvaluationException("position < 0");
-		}
-		int bucketIdx = 0;
-		int count = 0;
-		while (count + shape[bucketIdx].length <= position) {
-			count += shape[bucketIdx].length;
-			bucketIdx++;
-			if (bucketIdx >= shape.length) {
-				throw new EvaluationException("position >= size");
-			}
-		}
-		return shape[bucketIdx][position - count];
+		checkPosition(position);
+		return at(position);
 	}
 
 	/**
@@ -337,31 +567,27 @@ public class FplList implements FplValue, Iterable<FplValue> {
 		// overwrite
 		// overwrite the one "element" to replace. Costs one write operation, gains
 		// simplicity.
-		checkNotEmpty();
-		if (position < 0) {
-			throw new EvaluationException("position < 0");
+		checkPosition(position);
+		if (storage instanceof ListStorage.RopeTree || size > ROPE_THRESHOLD) {
+			return new FplList(toRope().set(position, element));
 		}
-		int bucketIdx = 0;
-		int count = 0;
-		while (count + shape[bucketIdx].length <= position) {
-			count += shape[bucketIdx].length;
-			bucketIdx++;
-			if (bucketIdx >= shape.length) {
-				throw new EvaluationException("position >= size");
-			}
+		if (shape == null) {
+			return withBuckets().set(position, element);
 		}
+		int bucketIdx = bucketIndex(position);
+		int count = bucketStart(bucketIdx);
 		FplValue[][] newShape;
-		int bucketSize = shape[bucketIdx].length;
+		int bucketSize = shape()[bucketIdx].length;
 		if (bucketSize <= BASE_SIZE) {
 			// simple case: We hit a small bucket
-			newShape = shape.clone();
-			FplValue[] newBucket = shape[bucketIdx].clone();
+			newShape = shape().clone();
+			FplValue[] newBucket = shape()[bucketIdx].clone();
 			newBucket[position - count] = element;
 			newShape[bucketIdx] = newBucket;
 		} else {
 			// we hit a large bucket, which has to be split
 			int s = size();
-			if (needsReshaping(shape.length + 1, s)) {
+			if (needsReshaping(shape().length + 1, s)) {
 				int[] bucketSizes = computeBucketSizes(s);
 				newShape = new FplValue[bucketSizes.length][];
 
@@ -371,20 +597,20 @@ public class FplList implements FplValue, Iterable<FplValue> {
 				int inBucketDstIdx = 0;
 				count = 0;
 				boolean overwritten = false;
-				while (bucketIdx < shape.length) {
-					int length = min(shape[bucketIdx].length - inBucketIdx, bucketSizes[dstBucketIdx] - inBucketDstIdx);
+				while (bucketIdx < shape().length) {
+					int length = min(shape()[bucketIdx].length - inBucketIdx, bucketSizes[dstBucketIdx] - inBucketDstIdx);
 					if (inBucketDstIdx == 0) {
-						newShape[dstBucketIdx] = copyOfRange(shape[bucketIdx], inBucketIdx,
+						newShape[dstBucketIdx] = copyOfRange(shape()[bucketIdx], inBucketIdx,
 								inBucketIdx + bucketSizes[dstBucketIdx]);
 					} else {
-						arraycopy(shape[bucketIdx], inBucketIdx, newShape[dstBucketIdx], inBucketDstIdx, length);
+						arraycopy(shape()[bucketIdx], inBucketIdx, newShape[dstBucketIdx], inBucketDstIdx, length);
 					}
 					if (!overwritten && position - count < length) {
 						newShape[dstBucketIdx][inBucketDstIdx + position - count] = element;
 						overwritten = true;
 					}
 					inBucketIdx += length;
-					if (inBucketIdx == shape[bucketIdx].length) {
+					if (inBucketIdx == shape()[bucketIdx].length) {
 						inBucketIdx = 0;
 						bucketIdx++;
 					}
@@ -396,16 +622,16 @@ public class FplList implements FplValue, Iterable<FplValue> {
 					count += length;
 				}
 			} else {
-				newShape = new FplValue[shape.length + 1][];
+				newShape = new FplValue[shape().length + 1][];
 				// copy buckets before split bucket
-				arraycopy(shape, 0, newShape, 0, bucketIdx);
+				arraycopy(shape(), 0, newShape, 0, bucketIdx);
 
 				// split bucket (which has a length > BASE_SIZE)
 				int leftSize = bucketSize / 2;
 				int rightSize = bucketSize - leftSize;
-				newShape[bucketIdx] = copyOf(shape[bucketIdx], leftSize);
+				newShape[bucketIdx] = copyOf(shape()[bucketIdx], leftSize);
 				newShape[bucketIdx + 1] = new FplValue[rightSize];
-				arraycopy(shape[bucketIdx], leftSize, newShape[bucketIdx + 1], 0, rightSize);
+				arraycopy(shape()[bucketIdx], leftSize, newShape[bucketIdx + 1], 0, rightSize);
 				int inBucketIdx = position - count;
 				if (inBucketIdx < leftSize) {
 					newShape[bucketIdx][inBucketIdx] = element;
@@ -414,7 +640,7 @@ public class FplList implements FplValue, Iterable<FplValue> {
 				}
 
 				// copy buckets behind split bucket
-				arraycopy(shape, bucketIdx + 1, newShape, bucketIdx + 2, shape.length - bucketIdx - 1);
+				arraycopy(shape(), bucketIdx + 1, newShape, bucketIdx + 2, shape().length - bucketIdx - 1);
 			}
 		}
 		return new FplList(newShape);
@@ -444,6 +670,15 @@ public class FplList implements FplValue, Iterable<FplValue> {
 		if (oldSize == 0) {
 			return patch;
 		}
+		if (storage instanceof ListStorage.RopeTree || oldSize > ROPE_THRESHOLD) {
+			Rope r = toRope();
+			Rope head = from == 0 ? null : r.slice(0, from);
+			Rope tail = from + numReplaced == oldSize ? null : r.slice(from + numReplaced, oldSize);
+			return fromRope(Rope.concat(Rope.concat(head, patch.toRope()), tail));
+		}
+		if (shape == null || patch.shape == null) {
+			return withBuckets().replaceElements(from, patch.withBuckets(), numReplaced);
+		}
 		int patchSize = patch.size();
 		int resultSize = oldSize - numReplaced + patchSize;
 
@@ -454,8 +689,8 @@ public class FplList implements FplValue, Iterable<FplValue> {
 
 		int patchStartBucketIdx = 0;
 		int count = 0;
-		while (count + shape[patchStartBucketIdx].length <= from) {
-			count += shape[patchStartBucketIdx].length;
+		while (count + shape()[patchStartBucketIdx].length <= from) {
+			count += shape()[patchStartBucketIdx].length;
 			patchStartBucketIdx++;
 		}
 		int patchStartInBucketIdx = from - count;
@@ -463,13 +698,13 @@ public class FplList implements FplValue, Iterable<FplValue> {
 		int tailStart = from + numReplaced;
 
 		int tailBucketIdx = patchStartBucketIdx;
-		while (count + shape[tailBucketIdx].length < tailStart) {
-			count += shape[tailBucketIdx].length;
+		while (count + shape()[tailBucketIdx].length < tailStart) {
+			count += shape()[tailBucketIdx].length;
 			tailBucketIdx++;
 		}
 		int tailInBucketIdx = tailStart - count;
 
-		int resultNumBuckets = patchStartBucketIdx + 1 + patch.shape.length + shape.length - tailBucketIdx + 1;
+		int resultNumBuckets = patchStartBucketIdx + 1 + patch.shape().length + shape().length - tailBucketIdx + 1;
 		// TODO: resultNumBuckets can be reduced when the join of the first/last bucket from the patch
 		// combined with the "cut" buckets from the original list are not too big. 
 
@@ -486,9 +721,9 @@ public class FplList implements FplValue, Iterable<FplValue> {
 			
 			// copy head
 			while (count < from) {
-				int limit = min(min(shape[patchStartBucketIdx].length - patchStartInBucketIdx, subShape.length - destInBucketIdx), from - count);
+				int limit = min(min(shape()[patchStartBucketIdx].length - patchStartInBucketIdx, subShape.length - destInBucketIdx), from - count);
 
-				arraycopy(shape[patchStartBucketIdx], patchStartInBucketIdx, subShape, destInBucketIdx, limit);
+				arraycopy(shape()[patchStartBucketIdx], patchStartInBucketIdx, subShape, destInBucketIdx, limit);
 				patchStartInBucketIdx += limit;
 				destInBucketIdx += limit;
 				count += limit;
@@ -501,7 +736,7 @@ public class FplList implements FplValue, Iterable<FplValue> {
 						destInBucketIdx = 0;
 					}
 				}
-				if (patchStartInBucketIdx == shape[patchStartBucketIdx].length) {
+				if (patchStartInBucketIdx == shape()[patchStartBucketIdx].length) {
 					patchStartInBucketIdx = 0;
 					patchStartBucketIdx++;
 				}
@@ -511,14 +746,14 @@ public class FplList implements FplValue, Iterable<FplValue> {
 			int patchBucketIdx = 0;
 			int patchInBucketIdx = 0;
 			while (count < from + patchSize) {
-				int limit = min(patch.shape[patchBucketIdx].length - patchInBucketIdx, subShape.length - destInBucketIdx);
+				int limit = min(patch.shape()[patchBucketIdx].length - patchInBucketIdx, subShape.length - destInBucketIdx);
 				
-				arraycopy(patch.shape[patchBucketIdx], patchInBucketIdx, subShape, destInBucketIdx, limit);
+				arraycopy(patch.shape()[patchBucketIdx], patchInBucketIdx, subShape, destInBucketIdx, limit);
 				patchInBucketIdx += limit;
 				destInBucketIdx += limit;
 				count += limit;
 				
-				if (patchInBucketIdx == patch.shape[patchBucketIdx].length) {
+				if (patchInBucketIdx == patch.shape()[patchBucketIdx].length) {
 					patchInBucketIdx = 0;
 					patchBucketIdx++;
 				}
@@ -535,14 +770,14 @@ public class FplList implements FplValue, Iterable<FplValue> {
 			
 			// copy tail
 			while (count < resultSize) {
-				int limit = min(shape[tailBucketIdx].length - tailInBucketIdx, bucketSizes.length - destBucketIdx);
+				int limit = min(shape()[tailBucketIdx].length - tailInBucketIdx, subShape.length - destInBucketIdx);
 
-				arraycopy(shape[tailBucketIdx], tailInBucketIdx, subShape, destInBucketIdx, limit);
+				arraycopy(shape()[tailBucketIdx], tailInBucketIdx, subShape, destInBucketIdx, limit);
 				tailInBucketIdx += limit;
 				destInBucketIdx += limit;
 				count += limit;
 
-				if (tailInBucketIdx == shape[tailBucketIdx].length) {
+				if (tailInBucketIdx == shape()[tailBucketIdx].length) {
 					tailInBucketIdx = 0;
 					tailBucketIdx++;
 				}
@@ -570,12 +805,19 @@ public class FplList implements FplValue, Iterable<FplValue> {
 	 * @return New List: This list plus one new element at front.
 	 */
 	public FplList addAtStart(FplValue value) {
+		Rope rope = rope();
+		if (rope != null) {
+			return new FplList(Rope.concat(Rope.leaf(value), rope));
+		}
+		if (shape == null) {
+			return withBuckets().addAtStart(value);
+		}
 		int bucketIdx = 0;
 		int carrySize = 1;
 		int maxSize = BASE_SIZE;
 		int lastSize = 0;
-		while (bucketIdx < shape.length) {
-			int bucketSize = shape[bucketIdx].length;
+		while (bucketIdx < shape().length) {
+			int bucketSize = shape()[bucketIdx].length;
 
 			if (bucketSize < lastSize) {
 				// Buckets are getting smaller, insert carry before
@@ -599,18 +841,18 @@ public class FplList implements FplValue, Iterable<FplValue> {
 			maxSize *= FACTOR;
 		}
 		// buckedIdx points to the first bucket which is NOT part of the carry
-		FplValue[][] bucketsDst = new FplValue[shape.length - bucketIdx + 1][];
+		FplValue[][] bucketsDst = new FplValue[shape().length - bucketIdx + 1][];
 
 		// Collect carry
 		FplValue[] carry = new FplValue[carrySize];
 		bucketsDst[0] = carry;
 		carry[0] = value;
 		for (int i = 0, dst = 1; i < bucketIdx; i++) {
-			arraycopy(shape[i], 0, carry, dst, shape[i].length);
-			dst += shape[i].length;
+			arraycopy(shape()[i], 0, carry, dst, shape()[i].length);
+			dst += shape()[i].length;
 		}
 		// Copy buckets (behind carry)
-		arraycopy(shape, bucketIdx, bucketsDst, 1, bucketsDst.length - 1);
+		arraycopy(shape(), bucketIdx, bucketsDst, 1, bucketsDst.length - 1);
 
 		return new FplList(bucketsDst);
 	}
@@ -622,12 +864,19 @@ public class FplList implements FplValue, Iterable<FplValue> {
 	 * @return New List: This list plus the new element at the end.
 	 */
 	public FplList addAtEnd(FplValue value) {
-		int bucketIdx = shape.length - 1;
+		Rope rope = rope();
+		if (rope != null) {
+			return new FplList(Rope.concat(rope, Rope.leaf(value)));
+		}
+		if (shape == null) {
+			return withBuckets().addAtEnd(value);
+		}
+		int bucketIdx = shape().length - 1;
 		int carrySize = 1;
 		int maxSize = BASE_SIZE;
 		int lastSize = 0;
 		while (bucketIdx >= 0) {
-			int bucketSize = shape[bucketIdx].length;
+			int bucketSize = shape()[bucketIdx].length;
 
 			if (bucketSize < lastSize) {
 				// Buckets are getting smaller, insert carry behind
@@ -653,15 +902,15 @@ public class FplList implements FplValue, Iterable<FplValue> {
 		}
 		// buckedIdx points to the first bucket which is NOT part of the carry
 		// Copy buckets (before carry)
-		FplValue[][] bucketsDst = copyOf(shape, bucketIdx + 2);
+		FplValue[][] bucketsDst = copyOf(shape(), bucketIdx + 2);
 
 		// Collect carry
 		FplValue[] carry = new FplValue[carrySize];
 		bucketsDst[bucketsDst.length - 1] = carry;
 		carry[carry.length - 1] = value;
-		for (int i = bucketIdx + 1, dst = 0; i < shape.length; i++) {
-			arraycopy(shape[i], 0, carry, dst, shape[i].length);
-			dst += shape[i].length;
+		for (int i = bucketIdx + 1, dst = 0; i < shape().length; i++) {
+			arraycopy(shape()[i], 0, carry, dst, shape()[i].length);
+			dst += shape()[i].length;
 		}
 		return new FplList(bucketsDst);
 	}
@@ -679,29 +928,35 @@ public class FplList implements FplValue, Iterable<FplValue> {
 		if (isEmpty()) {
 			return list;
 		}
+		if (storage instanceof ListStorage.RopeTree || list.storage instanceof ListStorage.RopeTree) {
+			return new FplList(Rope.concat(toRope(), list.toRope()));
+		}
+		if (shape == null || list.shape == null) {
+			return withBuckets().append(list.withBuckets());
+		}
 		int totalSize = size() + list.size();
-		int totalBuckets = shape.length + list.shape.length;
+		int totalBuckets = shape().length + list.shape().length;
 
-		FplValue[] lastBucket = shape[shape.length - 1];
-		FplValue[] listFirstBucket = list.shape[0];
+		FplValue[] lastBucket = shape()[shape().length - 1];
+		FplValue[] listFirstBucket = list.shape()[0];
 
 		if (lastBucket.length + listFirstBucket.length <= BASE_SIZE) {
 			if (needsReshaping(totalBuckets - 1, totalSize)) {
-				return new FplList(mergedShape(shape, list.shape, totalSize));
+				return new FplList(mergedShape(shape(), list.shape(), totalSize));
 			} else {
-				FplValue[][] buckets = copyOf(shape, shape.length + list.shape.length - 1);
+				FplValue[][] buckets = copyOf(shape(), shape().length + list.shape().length - 1);
 				FplValue[] bucket = copyOf(lastBucket, lastBucket.length + listFirstBucket.length);
 				arraycopy(listFirstBucket, 0, bucket, lastBucket.length, listFirstBucket.length);
-				buckets[shape.length - 1] = bucket;
-				arraycopy(list.shape, 1, buckets, shape.length, list.shape.length - 1);
+				buckets[shape().length - 1] = bucket;
+				arraycopy(list.shape(), 1, buckets, shape().length, list.shape().length - 1);
 				return new FplList(buckets);
 			}
 		} else {
 			if (needsReshaping(totalBuckets, totalSize)) {
-				return new FplList(mergedShape(shape, list.shape, totalSize));
+				return new FplList(mergedShape(shape(), list.shape(), totalSize));
 			} else {
-				FplValue[][] buckets = copyOf(shape, shape.length + list.shape.length);
-				arraycopy(list.shape, 0, buckets, shape.length, list.shape.length);
+				FplValue[][] buckets = copyOf(shape(), shape().length + list.shape().length);
+				arraycopy(list.shape(), 0, buckets, shape().length, list.shape().length);
 				return new FplList(buckets);
 			}
 		}
@@ -799,7 +1054,8 @@ public class FplList implements FplValue, Iterable<FplValue> {
 	/**
 	 * Returns a portion of this list between the specified {@code fromIndex},
 	 * inclusive, and {@code toIndex}, exclusive. (If {@code fromIndex} and
-	 * {@code toIndex} are equal, the returned list is empty.)
+	 * {@code toIndex} are equal, the returned list is empty.) Large sub lists
+	 * are views which share the elements with this list, small ones are copied.
 	 */
 	public FplList subList(int fromIndex, int toIndex) throws EvaluationException {
 		if (fromIndex < 0) {
@@ -811,47 +1067,71 @@ public class FplList implements FplValue, Iterable<FplValue> {
 		if (fromIndex == toIndex) {
 			return EMPTY_LIST;
 		}
-		int bucketFromIdx = 0;
-		int index = 0;
-
-		// Determine index of first bucket and index within that bucket
-		while (index + shape[bucketFromIdx].length <= fromIndex) {
-			index += shape[bucketFromIdx].length;
-			bucketFromIdx++;
-			if (bucketFromIdx >= shape.length) {
-				throw new EvaluationException("fromIndex >= size");
-			}
+		if (fromIndex >= size) {
+			throw new EvaluationException("fromIndex >= size");
+		}
+		if (toIndex > size) {
+			throw new EvaluationException("toIndex > size + 1");
+		}
+		if (fromIndex == 0 && toIndex == size) {
+			return this;
 		}
-		int inBucketFromIdx = fromIndex - index;
-		int bucketToIdx = bucketFromIdx;
+		Rope rope = rope();
+		if (rope != null) {
+			return new FplList(rope.slice(fromIndex, toIndex));
+		}
+		ListStorage.View view = view();
+		if (view != null) {
+			// A view of a view shares the base list
+			return view.base.viewOrCopy(view.offset + fromIndex, view.offset + toIndex);
+		}
+		return viewOrCopy(fromIndex, toIndex);
+	}
 
-		// Determine index of last bucket and index within that bucket
-		while (index + shape[bucketToIdx].length <= toIndex - 1) {
-			index += shape[bucketToIdx].length;
-			bucketToIdx++;
-			if (bucketToIdx >= shape.length) {
-				throw new EvaluationException("toIndex > size + 1");
-			}
+	/**
+	 * Sub list of a list with buckets or primitive numbers: A view when it is large
+	 * enough, otherwise a copy.
+	 *
+	 * @param fromIndex First position (inclusive), must be valid.
+	 * @param toIndex   Last position (exclusive), must be &gt; fromIndex and &lt;=
+	 *                  size.
+	 */
+	private FplList viewOrCopy(int fromIndex, int toIndex) {
+		int length = toIndex - fromIndex;
+		if (length == size) {
+			return this;
+		}
+		if (length >= MIN_VIEW_SIZE && length >= size / VIEW_RATIO) {
+			return new FplList(this, fromIndex, length);
 		}
-		int inBucketToIdx = toIndex - index;
+		if (shape == null) {
+			long[] longs = longs();
+			return longs != null ? new FplList(copyOfRange(longs, fromIndex, toIndex))
+					: new FplList(copyOfRange(doubles(), fromIndex, toIndex));
+		}
+		// Determine index of first and last bucket and indexes within these buckets
+		int bucketFromIdx = bucketIndex(fromIndex);
+		int inBucketFromIdx = fromIndex - bucketStart(bucketFromIdx);
+		int bucketToIdx = bucketIndex(toIndex - 1);
+		int inBucketToIdx = toIndex - bucketStart(bucketToIdx);
 
 		// Optimization: Return origin list when subList of complete list is requested
-		if (fromIndex == 0 && bucketToIdx == shape.length - 1 && inBucketToIdx == shape[bucketToIdx].length) {
+		if (fromIndex == 0 && bucketToIdx == shape().length - 1 && inBucketToIdx == shape()[bucketToIdx].length) {
 			return this;
 		}
 
 		if (bucketFromIdx == bucketToIdx) {
-			return subListFromOneLargeArray(shape[bucketFromIdx], inBucketFromIdx, inBucketToIdx);
+			return subListFromOneLargeArray(shape()[bucketFromIdx], inBucketFromIdx, inBucketToIdx);
 		} else {
-			int numBucketsLeft = computeNumberOfBucketsLeft(shape[bucketFromIdx], inBucketFromIdx);
-			int numBucketsRight = computeNumberOfBucketsRight(shape[bucketToIdx], inBucketToIdx);
+			int numBucketsLeft = computeNumberOfBucketsLeft(shape()[bucketFromIdx], inBucketFromIdx);
+			int numBucketsRight = computeNumberOfBucketsRight(shape()[bucketToIdx], inBucketToIdx);
 			int numBucketsCenter = bucketToIdx - bucketFromIdx - 1;
 
 			FplValue[][] bucketsDst = new FplValue[numBucketsLeft + numBucketsCenter + numBucketsRight][];
 
-			createAndFillShapeFromLeft(shape[bucketFromIdx], inBucketFromIdx, bucketsDst);
-			arraycopy(shape, bucketFromIdx + 1, bucketsDst, numBucketsLeft, numBucketsCenter);
-			createAndFillShapeFromRight(shape[bucketToIdx], inBucketToIdx, bucketsDst);
+			createAndFillShapeFromLeft(shape()[bucketFromIdx], inBucketFromIdx, bucketsDst);
+			arraycopy(shape(), bucketFromIdx + 1, bucketsDst, numBucketsLeft, numBucketsCenter);
+			createAndFillShapeFromRight(shape()[bucketToIdx], inBucketToIdx, bucketsDst);
 
 			return new FplList(bucketsDst);
 		}
@@ -955,19 +1235,22 @@ public class FplList implements FplValue, Iterable<FplValue> {
 		if (to == 0) {
 			return EMPTY_LIST;
 		}
+		if (shape == null) {
+			return subList(0, to);
+		}
 		FplValue[][] data;
 
 		int count = 0;
 		int fromBucketIdx = 0;
 		while (count < to) {
-			count += shape[fromBucketIdx++].length;
+			count += shape()[fromBucketIdx++].length;
 		}
-		if (fromBucketIdx < shape.length && count == to) {
-			data = copyOf(shape, fromBucketIdx);
+		if (fromBucketIdx < shape().length && count == to) {
+			data = copyOf(shape(), fromBucketIdx);
 		} else {
 			data = createShapeForSplitting(to);
 			fromBucketIdx = 0;
-			FplValue[] fromBucket = shape[fromBucketIdx];
+			FplValue[] fromBucket = shape()[fromBucketIdx];
 			int inFromBucketIdx = 0;
 			int toBucketIdx = 0;
 			FplValue[] toBucket = data[toBucketIdx];
@@ -977,7 +1260,7 @@ public class FplList implements FplValue, Iterable<FplValue> {
 				if (inFromBucketIdx == fromBucket.length) {
 					// We can never hit the last value in the last bucket,
 					// so here no "if" necessary as for toBucketIdx
-					fromBucket = shape[++fromBucketIdx];
+					fromBucket = shape()[++fromBucketIdx];
 					inFromBucketIdx = 0;
 				}
 				if (inToBucketIdx == toBucket.length) {
@@ -1004,21 +1287,24 @@ public class FplList implements FplValue, Iterable<FplValue> {
 		if (size == 0) {
 			return EMPTY_LIST;
 		}
+		if (shape == null) {
+			return subList(from, to);
+		}
 		FplValue[][] data;
 
 		int count = 0;
-		int fromBucketIdx = shape.length - 1;
+		int fromBucketIdx = shape().length - 1;
 		while (count < size) {
-			count += shape[fromBucketIdx--].length;
+			count += shape()[fromBucketIdx--].length;
 		}
 		fromBucketIdx++;
 		if (count == size) {
-			data = copyOfRange(shape, fromBucketIdx, shape.length); // new FplValue[shape.length - fromBucketIdx][];
+			data = copyOfRange(shape(), fromBucketIdx, shape().length); // new FplValue[shape().length - fromBucketIdx][];
 		} else {
 			data = createShapeForSplitting(size);
 
-			fromBucketIdx = shape.length - 1;
-			FplValue[] fromBucket = shape[fromBucketIdx];
+			fromBucketIdx = shape().length - 1;
+			FplValue[] fromBucket = shape()[fromBucketIdx];
 			int inFromBucketIdx = fromBucket.length - 1;
 			int toBucketIdx = data.length - 1;
 			FplValue[] toBucket = data[toBucketIdx];
@@ -1026,7 +1312,7 @@ public class FplList implements FplValue, Iterable<FplValue> {
 			for (int i = 0; i < size; i++) {
 				toBucket[inToBucketIdx--] = fromBucket[inFromBucketIdx--];
 				if (inFromBucketIdx < 0) {
-					fromBucket = shape[--fromBucketIdx];
+					fromBucket = shape()[--fromBucketIdx];
 					inFromBucketIdx = fromBucket.length - 1;
 				}
 				if (inToBucketIdx < 0) {
@@ -1066,15 +1352,260 @@ public class FplList implements FplValue, Iterable<FplValue> {
 		}
 	}
 
+	/**
+	 * @return New array with the elements of this list.
+	 */
+	public FplValue[] toArray() {
+		FplValue[] result = new FplValue[size];
+		toArray(result, 0);
+		return result;
+	}
+
+	/**
+	 * Copy all elements of this list into an array, bucket by bucket.
+	 *
+	 * @param dst    Destination, must have room for {@link #size()} elements
+	 *               starting at <code>offset</code>.
+	 * @param offset Position of the first element in <code>dst</code>.
+	 */
+	public void toArray(FplValue[] dst, int offset) {
+		if (isEmpty()) {
+			return;
+		}
+		Rope rope = rope();
+		ListStorage.View view = view();
+		if (rope != null) {
+			rope.copyTo(dst, offset);
+		} else if (view != null) {
+			view.base.copyRange(view.offset, view.offset + size, dst, offset);
+		} else {
+			copyRange(0, size, dst, offset);
+		}
+	}
+
+	/**
+	 * Copy a range of a list with buckets or primitive numbers into an array.
+	 *
+	 * @param from      First position (inclusive), must be valid.
+	 * @param to        Last position (exclusive), must be &gt; from and &lt;= size.
+	 * @param dst       Destination array.
+	 * @param dstOffset Position in <code>dst</code> for the element at
+	 *                  <code>from</code>.
+	 */
+	private void copyRange(int from, int to, FplValue[] dst, int dstOffset) {
+		if (shape == null) {
+			for (int position = from; position < to; position++) {
+				dst[dstOffset++] = storage.get(position);
+			}
+			return;
+		}
+		int bucketIdx = bucketIndex(from);
+		int inBucketIdx = from - bucketStart(bucketIdx);
+		int rest = to - from;
+		while (rest > 0) {
+			int length = min(rest, shape[bucketIdx].length - inBucketIdx);
+			arraycopy(shape[bucketIdx], inBucketIdx, dst, dstOffset, length);
+			dstOffset += length;
+			rest -= length;
+			bucketIdx++;
+			inBucketIdx = 0;
+		}
+	}
+
 	/**
 	 * @return Number of elements in the list.
 	 */
 	public int size() {
-		int count = 0;
-		for (FplValue[] bucket : shape) {
-			count += bucket.length;
+		return size;
+	}
+
+	/**
+	 * @return Buckets with the elements. For lists of primitive numbers, ropes and
+	 *         views they are created on each call and not kept, so the list does
+	 *         not hold the boxed elements in addition to its own storage (or the
+	 *         base list of a view).
+	 */
+	FplValue[][] shape() {
+		return shape != null ? shape : idealShape();
+	}
+
+	/**
+	 * @return This list, or a list with the same elements in buckets for lists of
+	 *         primitive numbers, ropes and views. Operations changing the buckets
+	 *         work on this list, which is garbage afterwards.
+	 */
+	private FplList withBuckets() {
+		return shape != null ? this : new FplList(idealShape());
+	}
+
+	/**
+	 * @return Copy of the elements in buckets with the sizes from
+	 *         {@link #computeBucketSizes(int)}.
+	 */
+	private FplValue[][] idealShape() {
+		int[] bucketSizes = computeBucketSizes(size);
+		FplValue[][] b = new FplValue[bucketSizes.length][];
+		Iterator<FplValue> iter = iterator();
+		for (int bucketIdx = 0; bucketIdx < b.length; bucketIdx++) {
+			FplValue[] bucket = new FplValue[bucketSizes[bucketIdx]];
+			for (int inBucketIdx = 0; inBucketIdx < bucket.length; inBucketIdx++) {
+				bucket[inBucketIdx] = iter.next();
+			}
+			b[bucketIdx] = bucket;
+		}
+		return b;
+	}
+
+	/**
+	 * @return <code>true</code> when the list has more buckets than a list of the
+	 *         same size created in one step. This happens after many calls of
+	 *         {@link #addAtStart(FplValue)}, {@link #addAtEnd(FplValue)} or
+	 *         {@link #append(FplList)}, it slows down {@link #get(int)} and
+	 *         iteration.
+	 */
+	public boolean isFragmented() {
+		return shape != null && shape.length > computeBucketSizes(size).length;
+	}
+
+	/**
+	 * Copy the elements into the storage a list of this size would get when
+	 * created in one step: Buckets with the sizes from
+	 * {@link #computeBucketSizes(int)} or, for a view of a list of primitive
+	 * numbers, a primitive array. Views no longer keep their base list alive
+	 * after compaction.
+	 *
+	 * @return The compacted list, or this list when it is already compact (which
+	 *         includes lists of primitive numbers).
+	 */
+	public FplList compact() {
+		ListStorage.View view = view();
+		if (view != null) {
+			long[] longs = view.base.longs();
+			if (longs != null) {
+				return new FplList(copyOfRange(longs, view.offset, view.offset + size));
+			}
+			double[] doubles = view.base.doubles();
+			if (doubles != null) {
+				return new FplList(copyOfRange(doubles, view.offset, view.offset + size));
+			}
+			return new FplList(idealShape());
+		}
+		if (storage instanceof ListStorage.RopeTree || isFragmented()) {
+			return new FplList(idealShape());
+		}
+		return this;
+	}
+
+	/**
+	 * @return {@link #compact()} when the list is fragmented, otherwise this list.
+	 */
+	public FplList compactIfFragmented() {
+		return isFragmented() ? compact() : this;
+	}
+
+	/**
+	 * @return How the elements are stored: "buckets", "longs", "doubles", "rope"
+	 *         or "view".
+	 */
+	public String storageKind() {
+		return shape != null ? "buckets" : storage.kind();
+	}
+
+	/**
+	 * @return Number of arrays holding the elements: Buckets or leaves of a rope,
+	 *         1 for lists of primitive numbers, 0 for views (they use the arrays
+	 *         of their base list).
+	 */
+	public int arrayCount() {
+		return shape != null ? shape.length : storage.arrayCount();
+	}
+
+	/**
+	 * Estimate the memory used by this list, assuming compressed references. The
+	 * elements themselves are not counted, neither is the base list of a view.
+	 * Buckets or rope nodes shared with other lists are counted for each list.
+	 *
+	 * @return Estimated size in bytes.
+	 */
+	public long estimatedBytes() {
+		long bytes = OBJECT_BYTES;
+		if (shape != null) {
+			bytes += arrayBytes(shape.length, REFERENCE_BYTES);
+			for (FplValue[] bucket : shape) {
+				bytes += arrayBytes(bucket.length, REFERENCE_BYTES);
+			}
+		} else {
+			bytes += storage.estimatedBytes();
 		}
-		return count;
+		int[] o = offsets;
+		if (o != null) {
+			bytes += arrayBytes(o.length, 4);
+		}
+		return bytes;
+	}
+
+	/**
+	 * @param length       Length of an array.
+	 * @param elementBytes Size of one element.
+	 * @return Size of the array (with header), rounded up to a multiple of 8.
+	 */
+	static long arrayBytes(int length, int elementBytes) {
+		return (ARRAY_HEADER_BYTES + (long) length * elementBytes + 7) & ~7L;
+	}
+
+	/**
+	 * @param position Position of an element, must be valid.
+	 * @return The element.
+	 */
+	FplValue at(int position) {
+		if (shape == null) {
+			return storage.get(position);
+		}
+		int bucketIdx = bucketIndex(position);
+		return shape[bucketIdx][position - bucketStart(bucketIdx)];
+	}
+
+	/**
+	 * @param position Position of an element, must be valid.
+	 * @return Index of the bucket containing the element (binary search).
+	 */
+	private int bucketIndex(int position) {
+		if (shape().length == 1) {
+			return 0;
+		}
+		int[] o = offsets();
+		int low = 0;
+		int high = shape().length - 1;
+		// Invariant: o[low] <= position < o[high + 1]
+		while (low < high) {
+			int mid = (low + high + 1) >>> 1;
+			if (o[mid] <= position) {
+				low = mid;
+			} else {
+				high = mid - 1;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * @param bucketIdx Index of a bucket.
+	 * @return Position of the first element of the bucket.
+	 */
+	private int bucketStart(int bucketIdx) {
+		return bucketIdx == 0 ? 0 : offsets()[bucketIdx];
+	}
+
+	private int[] offsets() {
+		int[] o = offsets;
+		if (o == null) {
+			o = new int[shape().length + 1];
+			for (int i = 0; i < shape().length; i++) {
+				o[i + 1] = o[i] + shape()[i].length;
+			}
+			offsets = o;
+		}
+		return o;
 	}
 
 	public FplList map(java.util.function.Function<FplValue, FplValue> operator) {
@@ -1125,10 +1656,44 @@ public class FplList implements FplValue, Iterable<FplValue> {
 		});
 	}
 
+	/**
+	 * @return Spliterator which splits at bucket boundaries when they are close to
+	 *         the middle of the remaining elements.
+	 */
+	@Override
+	public Spliterator<FplValue> spliterator() {
+		ListStorage.View view = view();
+		if (view != null) {
+			return view.base.new ListSpliterator(view.offset, view.offset + size);
+		}
+		return new ListSpliterator(0, size);
+	}
+
+	/**
+	 * @return Sequential stream of the elements.
+	 */
+	public Stream<FplValue> stream() {
+		return StreamSupport.stream(spliterator(), false);
+	}
+
+	/**
+	 * @return Parallel stream of the elements.
+	 */
+	public Stream<FplValue> parallelStream() {
+		return StreamSupport.stream(spliterator(), true);
+	}
+
 	@Override
 	public Iterator<FplValue> iterator() {
 		if (isEmpty()) {
 			return EMPTY_ITERATOR;
+		} else if (storage instanceof ListStorage.RopeTree) {
+			return rope().iterator();
+		} else if (storage instanceof ListStorage.View) {
+			ListStorage.View view = view();
+			return view.base.iterator(view.offset, view.offset + size);
+		} else if (shape == null) {
+			return iterator(0, size);
 		} else {
 			return new Iterator<FplValue>() {
 				private int bucketsIdx = 0;
@@ -1158,47 +1723,110 @@ public class FplList implements FplValue, Iterable<FplValue> {
 		}
 	}
 
+	/**
+	 * @param from First position (inclusive), must be valid.
+	 * @param to   Last position (exclusive), must be &gt; from and &lt;= size.
+	 * @return Iterator over a range of a list with buckets or primitive numbers.
+	 */
+	private Iterator<FplValue> iterator(int from, int to) {
+		return new Iterator<FplValue>() {
+			private int position = from;
+			private int bucketIdx = shape == null ? 0 : bucketIndex(from);
+			private int inBucketIdx = shape == null ? 0 : from - bucketStart(bucketIdx);
+
+			@Override
+			public boolean hasNext() {
+				return position < to;
+			}
+
+			@Override
+			public FplValue next() {
+				if (position >= to) {
+					throw new NoSuchElementException();
+				}
+				if (shape == null) {
+					return storage.get(position++);
+				}
+				FplValue result = shape[bucketIdx][inBucketIdx];
+				position++;
+				inBucketIdx++;
+				if (inBucketIdx == shape[bucketIdx].length && position < to) {
+					bucketIdx++;
+					inBucketIdx = 0;
+				}
+				return result;
+			}
+		};
+	}
+
 	@Override
 	public FplValue evaluate(Scope scope) throws EvaluationException {
-		FplValue function = first();
+		return evaluateCall(scope, first(), createParameterArray());
+	}
+
+	/**
+	 * Evaluate <code>function</code> and call it with <code>parameters</code>.
+	 * Exceptions are enriched with the FPL stack trace.
+	 */
+	static FplValue evaluateCall(Scope scope, FplValue function, FplValue[] parameters) throws EvaluationException {
+		return evaluateCall(scope, function, null, parameters, null);
+	}
+
+	/**
+	 * Like {@link #evaluateCall(Scope, FplValue, FplValue[])}, but with the
+	 * function already known (when <code>bound</code> is not <code>null</code>)
+	 * and the stack trace element of the call site computed before (when
+	 * <code>site</code> is not <code>null</code>).
+	 */
+	static FplValue evaluateCall(Scope scope, FplValue function, Function bound, FplValue[] parameters,
+			StackTraceElement site) throws EvaluationException {
 		try {
-			return evaluateToFunction(scope, function).call(scope, createParameterArray());
+			return (bound == null ? evaluateToFunction(scope, function) : bound).call(scope, parameters);
 		} catch (EvaluationException e) {
-			Position position = FplEngine.findPosition(function);
-			String method = (function instanceof Named) ? ((Named) function).getName() : "?";
-			e.add(new StackTraceElement(AbstractFunction.FPL, method, position.getName(), position.getLine()));
+			e.add(site == null ? callSite(function) : site);
 			throw e;
 		} catch (Throwable t) {
-			Position position = FplEngine.findPosition(function);
-			String method = (function instanceof Named) ? ((Named) function).getName() : "?";
 			EvaluationException e = new EvaluationException(t.getMessage(), t);
-			e.add(new StackTraceElement(AbstractFunction.FPL, method, position.getName(), position.getLine()));
+			e.add(site == null ? callSite(function) : site);
 			throw e;
 		}
 	}
 
+	/**
+	 * @param function The function expression of a call.
+	 * @return Element for the FPL stack trace of an exception within the call.
+	 */
+	static StackTraceElement callSite(FplValue function) {
+		Position position = FplEngine.findPosition(function);
+		String method = (function instanceof Named) ? ((Named) function).getName() : "?";
+		return new StackTraceElement(AbstractFunction.FPL, method, position.getName(), position.getLine());
+	}
+
 	@Override
 	public String typeName() {
 		return "list";
 	}
 
-	private FplValue[] createParameterArray() {
+	FplValue[] createParameterArray() {
+		if (shape == null) {
+			return copyOfRange(toArray(), 1, size);
+		}
 		FplValue[] params;
 		params = new FplValue[size() - 1];
 
 		// find start indexes
 		int bucketIdx = 0;
 		int inBucketIdx = 1;
-		if (inBucketIdx == shape[bucketIdx].length) {
+		if (inBucketIdx == shape()[bucketIdx].length) {
 			inBucketIdx = 0;
 			bucketIdx++;
 		}
 
 		// copy values
 		for (int i = 0; i < params.length; i++) {
-			params[i] = shape[bucketIdx][inBucketIdx];
+			params[i] = shape()[bucketIdx][inBucketIdx];
 			inBucketIdx++;
-			if (inBucketIdx == shape[bucketIdx].length) {
+			if (inBucketIdx == shape()[bucketIdx].length) {
 				inBucketIdx = 0;
 				bucketIdx++;
 			}
@@ -1207,7 +1835,7 @@ public class FplList implements FplValue, Iterable<FplValue> {
 	}
 
 	public boolean isEmpty() {
-		return shape.length == 0;
+		return size == 0;
 	}
 
 	/**
@@ -1229,15 +1857,202 @@ public class FplList implements FplValue, Iterable<FplValue> {
 		return sb.toString();
 	}
 
+	/**
+	 * Hash code computed from the elements like {@link List#hashCode()}. It is
+	 * cached, as the list can't change.
+	 */
+	@Override
+	public int hashCode() {
+		int h = hash;
+		if (h == 0 && size > 0) {
+			h = 1;
+			long[] longs = longs();
+			if (longs != null) {
+				// same as the hash code of FplInteger, without boxing
+				for (long value : longs) {
+					h = 31 * h + (int) (value ^ (value >>> 32));
+				}
+			} else {
+				for (FplValue value : this) {
+					h = 31 * h + (value == null ? 0 : value.hashCode());
+				}
+			}
+			hash = h;
+		}
+		return h;
+	}
+
+	/**
+	 * Two lists are equal when they have equal elements in the same order,
+	 * independent of how the elements are stored. This includes compiled lists
+	 * like {@link FunctionCall}, which can become data with <code>quote</code>.
+	 */
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof FplList)) {
+			return false;
+		}
+		FplList other = (FplList) obj;
+		if (size != other.size) {
+			return false;
+		}
+		int h = hash;
+		int otherHash = other.hash;
+		if (h != 0 && otherHash != 0 && h != otherHash) {
+			return false;
+		}
+		long[] longs = longs();
+		long[] otherLongs = other.longs();
+		if (longs != null && otherLongs != null) {
+			return Arrays.equals(longs, otherLongs);
+		}
+		Iterator<FplValue> otherIter = other.iterator();
+		for (FplValue value : this) {
+			if (!Objects.equals(value, otherIter.next())) {
+				return false;
+			}
+		}
+		return true;
+	}
+
 	// only for testing
 	int[] bucketSizes() {
-		int[] sizes = new int[shape.length];
-		for (int i = 0; i < shape.length; i++) {
-			sizes[i] = shape[i].length;
+		FplValue[][] s = shape();
+		int[] sizes = new int[s.length];
+		for (int i = 0; i < s.length; i++) {
+			sizes[i] = s[i].length;
 		}
 		return sizes;
 	}
 
+	private final class ListSpliterator implements Spliterator<FplValue> {
+		private int position;
+		private final int end;
+
+		ListSpliterator(int position, int end) {
+			this.position = position;
+			this.end = end;
+		}
+
+		@Override
+		public boolean tryAdvance(Consumer<? super FplValue> action) {
+			if (position >= end) {
+				return false;
+			}
+			FplValue value = at(position);
+			position++;
+			action.accept(value);
+			return true;
+		}
+
+		@Override
+		public void forEachRemaining(Consumer<? super FplValue> action) {
+			if (position >= end) {
+				return;
+			}
+			if (shape == null) {
+				Rope rope = rope();
+				Iterator<FplValue> iter = rope == null ? null : rope.slice(position, end).iterator();
+				while (position < end) {
+					action.accept(iter == null ? storage.get(position) : iter.next());
+					position++;
+				}
+				return;
+			}
+			int bucketIdx = bucketIndex(position);
+			int inBucketIdx = position - bucketStart(bucketIdx);
+			while (position < end) {
+				FplValue[] bucket = shape[bucketIdx];
+				int limit = min(bucket.length, inBucketIdx + end - position);
+				for (int i = inBucketIdx; i < limit; i++) {
+					position++;
+					action.accept(bucket[i]);
+				}
+				bucketIdx++;
+				inBucketIdx = 0;
+			}
+		}
+
+		@Override
+		public Spliterator<FplValue> trySplit() {
+			int remaining = end - position;
+			if (remaining < 2) {
+				return null;
+			}
+			int middle = position + remaining / 2;
+			if (shape != null && shape.length > 1) {
+				// Prefer a bucket boundary, as lowerHalf() and upperHalf() do
+				int bucketIdx = bucketIndex(middle);
+				int start = bucketStart(bucketIdx);
+				int next = start + shape[bucketIdx].length;
+				int boundary = middle - start <= next - middle ? start : next;
+				if (boundary > position && boundary < end && Math.abs(boundary - middle) <= remaining / 4) {
+					middle = boundary;
+				}
+			}
+			Spliterator<FplValue> prefix = new ListSpliterator(position, middle);
+			position = middle;
+			return prefix;
+		}
+
+		@Override
+		public long estimateSize() {
+			return end - position;
+		}
+
+		@Override
+		public int characteristics() {
+			return ORDERED | SIZED | SUBSIZED | IMMUTABLE;
+		}
+	}
+
+	/**
+	 * @return The array of a list of integers (or of the base list of such a
+	 *         view), <code>null</code> for other lists. Elements start at
+	 *         {@link #primitiveOffset()}. Must not be changed.
+	 */
+	long[] primitiveLongs() {
+		ListStorage.View view = view();
+		return view != null ? view.base.longs() : longs();
+	}
+
+	/**
+	 * @return The array of a list of doubles (or of the base list of such a view),
+	 *         <code>null</code> for other lists. Elements start at
+	 *         {@link #primitiveOffset()}. Must not be changed.
+	 */
+	double[] primitiveDoubles() {
+		ListStorage.View view = view();
+		return view != null ? view.base.doubles() : doubles();
+	}
+
+	/**
+	 * @return Position of the first element in {@link #primitiveLongs()} or
+	 *         {@link #primitiveDoubles()}.
+	 */
+	int primitiveOffset() {
+		ListStorage.View view = view();
+		return view != null ? view.offset : 0;
+	}
+
+	// only for testing
+	boolean isView() {
+		return storage instanceof ListStorage.View;
+	}
+
+	private void checkPosition(int position) throws EvaluationException {
+		checkNotEmpty();
+		if (position < 0) {
+			throw new EvaluationException("position < 0");
+		}
+		if (position >= size) {
+			throw new EvaluationException("position >= size");
+		}
+	}
+
 	private void checkNotEmpty() throws EvaluationException {
 		if (isEmpty()) {
 			throw new EvaluationException("List is empty");
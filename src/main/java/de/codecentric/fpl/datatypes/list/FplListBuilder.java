@@ -0,0 +1,92 @@
+package de.codecentric.fpl.datatypes.list;
+
+import static java.util.Arrays.copyOf;
+
+import de.codecentric.fpl.EvaluationException;
+import de.codecentric.fpl.datatypes.EvaluatesToThisValue;
+import de.codecentric.fpl.datatypes.FplValue;
+
+/**
+ * Builder for a {@link FplList}: Elements are appended in place, without the
+ * copying done by {@link FplList#addAtEnd(FplValue)}. {@link #toList()} turns
+ * the buckets into a list, after that the builder can't be used any more.
+ */
+public class FplListBuilder implements EvaluatesToThisValue {
+	private FplValue[][] buckets;
+	private int bucketCount;
+	private int lastBucketUsed;
+	private int size;
+	private boolean built;
+
+	public FplListBuilder() {
+		buckets = new FplValue[4][];
+		buckets[0] = new FplValue[FplList.BASE_SIZE];
+		bucketCount = 1;
+	}
+
+	/**
+	 * Append an element.
+	 *
+	 * @param value The element, may be <code>null</code>.
+	 * @return This builder.
+	 * @throws EvaluationException When the list has already been built.
+	 */
+	public synchronized FplListBuilder add(FplValue value) throws EvaluationException {
+		checkNotBuilt();
+		FplValue[] lastBucket = buckets[bucketCount - 1];
+		if (lastBucketUsed == lastBucket.length) {
+			if (bucketCount == buckets.length) {
+				buckets = copyOf(buckets, bucketCount * 2);
+			}
+			lastBucket = new FplValue[lastBucket.length + lastBucket.length / 2]; // * 1.5
+			buckets[bucketCount++] = lastBucket;
+			lastBucketUsed = 0;
+		}
+		lastBucket[lastBucketUsed++] = value;
+		size++;
+		return this;
+	}
+
+	/**
+	 * @return Number of elements added so far.
+	 */
+	public synchronized int size() {
+		return size;
+	}
+
+	/**
+	 * Create the list without copying the elements: The buckets are taken over by
+	 * the list. When the last bucket is not full, the result is a view of the
+	 * filled part (see {@link FplList#subList(int, int)}), only a small list is
+	 * copied.
+	 *
+	 * @return The list with all added elements.
+	 * @throws EvaluationException When the list has already been built.
+	 */
+	public synchronized FplList toList() throws EvaluationException {
+		checkNotBuilt();
+		built = true;
+		if (size == 0) {
+			return FplList.EMPTY_LIST;
+		}
+		FplList all = new FplList(copyOf(buckets, bucketCount));
+		buckets = null;
+		return all.subList(0, size);
+	}
+
+	private void checkNotBuilt() throws EvaluationException {
+		if (built) {
+			throw new EvaluationException("List has already been built");
+		}
+	}
+
+	@Override
+	public String typeName() {
+		return "list-builder";
+	}
+
+	@Override
+	public synchronized String toString() {
+		return "list-builder(" + size + (built ? ", built)" : ")");
+	}
+}
@@ -0,0 +1,73 @@
+package de.codecentric.fpl.datatypes.list;
+
+import de.codecentric.fpl.EvaluationException;
+import de.codecentric.fpl.data.Scope;
+import de.codecentric.fpl.datatypes.FplValue;
+import de.codecentric.fpl.datatypes.Function;
+
+/**
+ * A compiled function call: A non empty list where the function expression
+ * (first element) and the parameters (all other elements) are extracted once,
+ * so evaluation does not walk the list and copy the parameters on each call.
+ * Apart from evaluation, it behaves like the list it has been created from.
+ */
+public class FunctionCall extends FplList {
+	final FplValue function;
+	final FplValue[] parameters;
+	/** Stack trace element for exceptions within the call */
+	final StackTraceElement site;
+
+	/**
+	 * @param list The list with function expression and parameters, not empty.
+	 * @throws IllegalArgumentException If <code>list</code> is empty.
+	 */
+	public FunctionCall(FplList list) {
+		super(list.shape());
+		if (list.isEmpty()) {
+			throw new IllegalArgumentException("empty list is not a function call");
+		}
+		function = list.at(0);
+		parameters = list.createParameterArray();
+		site = callSite(function);
+	}
+
+	@Override
+	public FplValue evaluate(Scope scope) throws EvaluationException {
+		return evaluateCall(scope, function, null, parameters, site);
+	}
+
+	/**
+	 * Call a function which has been resolved already with the parameters of
+	 * this call.
+	 *
+	 * @param scope    Scope of the call.
+	 * @param function The value of the function expression.
+	 * @return Result of the call.
+	 * @throws EvaluationException If the call fails.
+	 */
+	protected FplValue call(Scope scope, Function function) throws EvaluationException {
+		return evaluateCall(scope, this.function, function, parameters, site);
+	}
+
+	/**
+	 * @return The expression which evaluates to the called function.
+	 */
+	public FplValue getFunction() {
+		return function;
+	}
+
+	/**
+	 * @return Number of parameters passed to the function.
+	 */
+	public int getNumberOfParameters() {
+		return parameters.length;
+	}
+
+	/**
+	 * @param index Index of the parameter, starting with 0.
+	 * @return Expression of the parameter.
+	 */
+	public FplValue getParameter(int index) {
+		return parameters[index];
+	}
+}
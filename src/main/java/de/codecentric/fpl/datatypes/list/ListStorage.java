@@ -0,0 +1,159 @@
+package de.codecentric.fpl.datatypes.list;
+
+import de.codecentric.fpl.datatypes.FplDouble;
+import de.codecentric.fpl.datatypes.FplInteger;
+import de.codecentric.fpl.datatypes.FplValue;
+
+/**
+ * Storage of a list without buckets: Primitive numbers, a {@link Rope} or a
+ * view of another list. Most lists have buckets, so {@link FplList} keeps
+ * everything needed for these rare kinds of storage in one field of this type.
+ */
+abstract class ListStorage {
+	/** Estimated size of a storage object (header and one field), in bytes. */
+	static final int OBJECT_BYTES = 16;
+
+	/**
+	 * @param position Position of an element, must be valid.
+	 * @return The (boxed) element.
+	 */
+	abstract FplValue get(int position);
+
+	/**
+	 * @return See {@link FplList#storageKind()}.
+	 */
+	abstract String kind();
+
+	/**
+	 * @return See {@link FplList#arrayCount()}.
+	 */
+	abstract int arrayCount();
+
+	/**
+	 * @return Estimated size of this object and the arrays it owns, without the
+	 *         boxed elements.
+	 */
+	abstract long estimatedBytes();
+
+	/** Elements of a list of integers, stored without boxing. */
+	static final class LongArray extends ListStorage {
+		final long[] values;
+
+		LongArray(long[] values) {
+			this.values = values;
+		}
+
+		@Override
+		FplValue get(int position) {
+			return FplInteger.valueOf(values[position]);
+		}
+
+		@Override
+		String kind() {
+			return "longs";
+		}
+
+		@Override
+		int arrayCount() {
+			return 1;
+		}
+
+		@Override
+		long estimatedBytes() {
+			return OBJECT_BYTES + FplList.arrayBytes(values.length, 8);
+		}
+	}
+
+	/** Elements of a list of doubles, stored without boxing. */
+	static final class DoubleArray extends ListStorage {
+		final double[] values;
+
+		DoubleArray(double[] values) {
+			this.values = values;
+		}
+
+		@Override
+		FplValue get(int position) {
+			return new FplDouble(values[position]);
+		}
+
+		@Override
+		String kind() {
+			return "doubles";
+		}
+
+		@Override
+		int arrayCount() {
+			return 1;
+		}
+
+		@Override
+		long estimatedBytes() {
+			return OBJECT_BYTES + FplList.arrayBytes(values.length, 8);
+		}
+	}
+
+	/** Elements of a large list which has been changed by replacing elements. */
+	static final class RopeTree extends ListStorage {
+		final Rope rope;
+
+		RopeTree(Rope rope) {
+			this.rope = rope;
+		}
+
+		@Override
+		FplValue get(int position) {
+			return rope.get(position);
+		}
+
+		@Override
+		String kind() {
+			return "rope";
+		}
+
+		@Override
+		int arrayCount() {
+			return rope.leafCount();
+		}
+
+		@Override
+		long estimatedBytes() {
+			return OBJECT_BYTES + rope.estimatedBytes();
+		}
+	}
+
+	/**
+	 * A sub list sharing the elements of a list with buckets or primitive
+	 * numbers, starting at {@link #offset}.
+	 */
+	static final class View extends ListStorage {
+		final FplList base;
+		final int offset;
+
+		View(FplList base, int offset) {
+			this.base = base;
+			this.offset = offset;
+		}
+
+		@Override
+		FplValue get(int position) {
+			return base.at(offset + position);
+		}
+
+		@Override
+		String kind() {
+			return "view";
+		}
+
+		@Override
+		int arrayCount() {
+			return 0;
+		}
+
+		@Override
+		long estimatedBytes() {
+			// one more field
+			return OBJECT_BYTES + 8;
+		}
+	}
+}
@@ -0,0 +1,434 @@
+package de.codecentric.fpl.datatypes.list;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+import de.codecentric.fpl.EvaluationException;
+import de.codecentric.fpl.datatypes.FplBigInteger;
+import de.codecentric.fpl.datatypes.FplDouble;
+import de.codecentric.fpl.datatypes.FplInteger;
+import de.codecentric.fpl.datatypes.FplNumber;
+import de.codecentric.fpl.datatypes.FplValue;
+
+/**
+ * The elements of a list of numbers as a primitive array, for numeric kernels
+ * (sum, dot product, ...) which run in tight loops without boxing. Lists of
+ * primitive numbers (and views of them) are used without copying, other lists
+ * are unboxed once. Lists with big integers are kept as {@link BigInteger}s.
+ * <p>
+ * Integer arithmetic works like <code>+</code> and <code>*</code>: Unchecked,
+ * it overflows silently, checked (see <code>checked-arithmetic</code>), the
+ * result becomes a big integer. As soon as one double is involved, the result
+ * is double.
+ */
+public final class NumberVector {
+	/**
+	 * Integer elements, <code>null</code> when there is at least one double or big
+	 * integer.
+	 */
+	private final long[] longs;
+	/** Double elements, <code>null</code> when all elements are integers. */
+	private final double[] doubles;
+	/**
+	 * Integer elements, when there is at least one big integer (and no double),
+	 * otherwise <code>null</code>.
+	 */
+	private final BigInteger[] bigs;
+	private final int offset;
+	private final int size;
+
+	private NumberVector(long[] longs, double[] doubles, BigInteger[] bigs, int offset, int size) {
+		this.longs = longs;
+		this.doubles = doubles;
+		this.bigs = bigs;
+		this.offset = offset;
+		this.size = size;
+	}
+
+	/**
+	 * @param list List of integers, big integers and doubles.
+	 * @return Vector with the elements of the list.
+	 * @throws EvaluationException When an element is not a number.
+	 */
+	public static NumberVector of(FplList list) throws EvaluationException {
+		int size = list.size();
+		long[] longs = list.primitiveLongs();
+		if (longs != null) {
+			return new NumberVector(longs, null, null, list.primitiveOffset(), size);
+		}
+		double[] doubles = list.primitiveDoubles();
+		if (doubles != null) {
+			return new NumberVector(null, doubles, null, list.primitiveOffset(), size);
+		}
+		BigInteger[] bigs = null;
+		longs = new long[size];
+		int i = 0;
+		for (FplValue value : list) {
+			if (value instanceof FplInteger) {
+				long l = ((FplInteger) value).getValue();
+				if (longs != null) {
+					longs[i] = l;
+				} else if (doubles != null) {
+					doubles[i] = l;
+				} else {
+					bigs[i] = BigInteger.valueOf(l);
+				}
+			} else if (value instanceof FplBigInteger) {
+				BigInteger b = ((FplBigInteger) value).getValue();
+				if (doubles != null) {
+					doubles[i] = b.doubleValue();
+				} else {
+					if (bigs == null) {
+						bigs = new BigInteger[size];
+						for (int j = 0; j < i; j++) {
+							bigs[j] = BigInteger.valueOf(longs[j]);
+						}
+						longs = null;
+					}
+					bigs[i] = b;
+				}
+			} else if (value instanceof FplDouble) {
+				if (doubles == null) {
+					doubles = new double[size];
+					for (int j = 0; j < i; j++) {
+						doubles[j] = longs != null ? longs[j] : bigs[j].doubleValue();
+					}
+					longs = null;
+					bigs = null;
+				}
+				doubles[i] = ((FplDouble) value).getValue();
+			} else {
+				throw new EvaluationException("Not a number: " + value);
+			}
+			i++;
+		}
+		return new NumberVector(longs, doubles, bigs, 0, size);
+	}
+
+	/**
+	 * Sort a list which contains only integers or only doubles with a primitive
+	 * sort, without comparing boxed values.
+	 * 
+	 * @param list List.
+	 * @return Sorted copy of the list, or <code>null</code> when the list contains
+	 *         other values than integers, or integers mixed with doubles.
+	 */
+	public static FplList sortedOrNull(FplList list) {
+		int size = list.size();
+		int offset = list.primitiveOffset();
+		long[] longs = list.primitiveLongs();
+		if (longs != null) {
+			longs = Arrays.copyOfRange(longs, offset, offset + size);
+			Arrays.sort(longs);
+			return FplList.fromLongs(longs);
+		}
+		double[] doubles = list.primitiveDoubles();
+		if (doubles != null) {
+			doubles = Arrays.copyOfRange(doubles, offset, offset + size);
+			Arrays.sort(doubles);
+			return FplList.fromDoubles(doubles);
+		}
+		if (size == 0) {
+			return list;
+		}
+		FplValue first = list.first();
+		int i = 0;
+		if (first instanceof FplInteger) {
+			longs = new long[size];
+			for (FplValue value : list) {
+				if (!(value instanceof FplInteger)) {
+					return null;
+				}
+				longs[i++] = ((FplInteger) value).getValue();
+			}
+			Arrays.sort(longs);
+			return FplList.fromLongs(longs);
+		} else if (first instanceof FplDouble) {
+			doubles = new double[size];
+			for (FplValue value : list) {
+				if (!(value instanceof FplDouble)) {
+					return null;
+				}
+				doubles[i++] = ((FplDouble) value).getValue();
+			}
+			Arrays.sort(doubles);
+			return FplList.fromDoubles(doubles);
+		}
+		return null;
+	}
+
+	/**
+	 * @return Number of elements.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @param checked Checked integer arithmetic?
+	 * @return Sum of all elements, 0 for an empty vector.
+	 */
+	public FplNumber sum(boolean checked) {
+		if (longs != null) {
+			long sum = 0;
+			if (!checked) {
+				for (int i = offset; i < offset + size; i++) {
+					sum += longs[i];
+				}
+				return FplInteger.valueOf(sum);
+			}
+			try {
+				for (int i = offset; i < offset + size; i++) {
+					sum = Math.addExact(sum, longs[i]);
+				}
+				return FplInteger.valueOf(sum);
+			} catch (ArithmeticException e) {
+				// overflow, continue with big integers
+			}
+		}
+		if (doubles == null) {
+			BigInteger sum = BigInteger.ZERO;
+			for (int i = 0; i < size; i++) {
+				sum = sum.add(bigAt(i));
+			}
+			return FplBigInteger.valueOf(sum);
+		}
+		return new FplDouble(doubleSum());
+	}
+
+	private double doubleSum() {
+		double sum = 0;
+		if (longs != null) {
+			for (int i = offset; i < offset + size; i++) {
+				sum += longs[i];
+			}
+		} else if (doubles != null) {
+			for (int i = offset; i < offset + size; i++) {
+				sum += doubles[i];
+			}
+		} else {
+			for (int i = 0; i < size; i++) {
+				sum += bigs[offset + i].doubleValue();
+			}
+		}
+		return sum;
+	}
+
+	/**
+	 * @return Smallest element.
+	 * @throws EvaluationException When the vector is empty.
+	 */
+	public FplNumber min() throws EvaluationException {
+		checkNotEmpty();
+		if (longs != null) {
+			long min = longs[offset];
+			for (int i = offset + 1; i < offset + size; i++) {
+				min = Math.min(min, longs[i]);
+			}
+			return FplInteger.valueOf(min);
+		}
+		if (bigs != null) {
+			BigInteger min = bigs[offset];
+			for (int i = offset + 1; i < offset + size; i++) {
+				min = min.min(bigs[i]);
+			}
+			return FplBigInteger.valueOf(min);
+		}
+		double min = doubles[offset];
+		for (int i = offset + 1; i < offset + size; i++) {
+			min = Math.min(min, doubles[i]);
+		}
+		return new FplDouble(min);
+	}
+
+	/**
+	 * @return Largest element.
+	 * @throws EvaluationException When the vector is empty.
+	 */
+	public FplNumber max() throws EvaluationException {
+		checkNotEmpty();
+		if (longs != null) {
+			long max = longs[offset];
+			for (int i = offset + 1; i < offset + size; i++) {
+				max = Math.max(max, longs[i]);
+			}
+			return FplInteger.valueOf(max);
+		}
+		if (bigs != null) {
+			BigInteger max = bigs[offset];
+			for (int i = offset + 1; i < offset + size; i++) {
+				max = max.max(bigs[i]);
+			}
+			return FplBigInteger.valueOf(max);
+		}
+		double max = doubles[offset];
+		for (int i = offset + 1; i < offset + size; i++) {
+			max = Math.max(max, doubles[i]);
+		}
+		return new FplDouble(max);
+	}
+
+	/**
+	 * @return Arithmetic mean, always a double.
+	 * @throws EvaluationException When the vector is empty.
+	 */
+	public double mean() throws EvaluationException {
+		checkNotEmpty();
+		return doubleSum() / size;
+	}
+
+	/**
+	 * @return Standard deviation of the population (divided by size, not size -
+	 *         1), computed in two passes.
+	 * @throws EvaluationException When the vector is empty.
+	 */
+	public double standardDeviation() throws EvaluationException {
+		double mean = mean();
+		double sum = 0;
+		for (int i = 0; i < size; i++) {
+			double d = doubleAt(i) - mean;
+			sum += d * d;
+		}
+		return Math.sqrt(sum / size);
+	}
+
+	/**
+	 * @param other   Vector with the same size.
+	 * @param checked Checked integer arithmetic?
+	 * @return Sum of the products of the elements at the same positions.
+	 * @throws EvaluationException When the sizes differ.
+	 */
+	public FplNumber dot(NumberVector other, boolean checked) throws EvaluationException {
+		checkSameSize(other);
+		if (longs != null && other.longs != null) {
+			long sum = 0;
+			if (!checked) {
+				for (int i = 0; i < size; i++) {
+					sum += longs[offset + i] * other.longs[other.offset + i];
+				}
+				return FplInteger.valueOf(sum);
+			}
+			try {
+				for (int i = 0; i < size; i++) {
+					sum = Math.addExact(sum, Math.multiplyExact(longs[offset + i], other.longs[other.offset + i]));
+				}
+				return FplInteger.valueOf(sum);
+			} catch (ArithmeticException e) {
+				// overflow, continue with big integers
+			}
+		}
+		if (doubles == null && other.doubles == null) {
+			BigInteger sum = BigInteger.ZERO;
+			for (int i = 0; i < size; i++) {
+				sum = sum.add(bigAt(i).multiply(other.bigAt(i)));
+			}
+			return FplBigInteger.valueOf(sum);
+		}
+		double sum = 0;
+		for (int i = 0; i < size; i++) {
+			sum += doubleAt(i) * other.doubleAt(i);
+		}
+		return new FplDouble(sum);
+	}
+
+	/**
+	 * @param other   Vector with the same size.
+	 * @param checked Checked integer arithmetic?
+	 * @return List with the sums of the elements at the same positions.
+	 * @throws EvaluationException When the sizes differ.
+	 */
+	public FplList add(NumberVector other, boolean checked) throws EvaluationException {
+		checkSameSize(other);
+		if (longs != null && other.longs != null) {
+			long[] result = new long[size];
+			if (!checked) {
+				for (int i = 0; i < size; i++) {
+					result[i] = longs[offset + i] + other.longs[other.offset + i];
+				}
+				return FplList.fromLongs(result);
+			}
+			try {
+				for (int i = 0; i < size; i++) {
+					result[i] = Math.addExact(longs[offset + i], other.longs[other.offset + i]);
+				}
+				return FplList.fromLongs(result);
+			} catch (ArithmeticException e) {
+				// overflow, continue with big integers
+			}
+		}
+		if (doubles == null && other.doubles == null) {
+			FplValue[] result = new FplValue[size];
+			for (int i = 0; i < size; i++) {
+				result[i] = FplBigInteger.valueOf(bigAt(i).add(other.bigAt(i)));
+			}
+			return FplList.fromArrayTakingOwnership(result);
+		}
+		double[] result = new double[size];
+		for (int i = 0; i < size; i++) {
+			result[i] = doubleAt(i) + other.doubleAt(i);
+		}
+		return FplList.fromDoubles(result);
+	}
+
+	/**
+	 * @param other   Vector with the same size.
+	 * @param checked Checked integer arithmetic?
+	 * @return List with the products of the elements at the same positions.
+	 * @throws EvaluationException When the sizes differ.
+	 */
+	public FplList multiply(NumberVector other, boolean checked) throws EvaluationException {
+		checkSameSize(other);
+		if (longs != null && other.longs != null) {
+			long[] result = new long[size];
+			if (!checked) {
+				for (int i = 0; i < size; i++) {
+					result[i] = longs[offset + i] * other.longs[other.offset + i];
+				}
+				return FplList.fromLongs(result);
+			}
+			try {
+				for (int i = 0; i < size; i++) {
+					result[i] = Math.multiplyExact(longs[offset + i], other.longs[other.offset + i]);
+				}
+				return FplList.fromLongs(result);
+			} catch (ArithmeticException e) {
+				// overflow, continue with big integers
+			}
+		}
+		if (doubles == null && other.doubles == null) {
+			FplValue[] result = new FplValue[size];
+			for (int i = 0; i < size; i++) {
+				result[i] = FplBigInteger.valueOf(bigAt(i).multiply(other.bigAt(i)));
+			}
+			return FplList.fromArrayTakingOwnership(result);
+		}
+		double[] result = new double[size];
+		for (int i = 0; i < size; i++) {
+			result[i] = doubleAt(i) * other.doubleAt(i);
+		}
+		return FplList.fromDoubles(result);
+	}
+
+	private double doubleAt(int i) {
+		if (longs != null) {
+			return longs[offset + i];
+		}
+		return doubles != null ? doubles[offset + i] : bigs[offset + i].doubleValue();
+	}
+
+	private BigInteger bigAt(int i) {
+		return longs != null ? BigInteger.valueOf(longs[offset + i]) : bigs[offset + i];
+	}
+
+	private void checkNotEmpty() throws EvaluationException {
+		if (size == 0) {
+			throw new EvaluationException("List is empty");
+		}
+	}
+
+	private void checkSameSize(NumberVector other) throws EvaluationException {
+		if (size != other.size) {
+			throw new EvaluationException("Lists have different sizes: " + size + " != " + other.size);
+		}
+	}
+}
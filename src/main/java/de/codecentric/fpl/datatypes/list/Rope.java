@@ -0,0 +1,280 @@
+package de.codecentric.fpl.datatypes.list;
+
+import static java.lang.Math.max;
+import static java.lang.System.arraycopy;
+import static java.util.Arrays.copyOfRange;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import de.codecentric.fpl.datatypes.FplValue;
+
+/**
+ * A persistent rope: An AVL balanced binary tree with small arrays of elements
+ * in its leaves. It is the shape of large lists which have been changed with
+ * {@link FplList#set(int, FplValue)} or
+ * {@link FplList#replaceElements(int, FplList, int)}. Access, update, split and
+ * concatenation need O(log n) steps and copy at most one leaf per level.
+ * <p>
+ * A rope is never empty, "no elements" is represented by <code>null</code>.
+ */
+final class Rope {
+	/** Maximum number of elements in a leaf. */
+	static final int MAX_LEAF = 32;
+	/** Estimated size of a node object (header and fields), in bytes. */
+	private static final int NODE_BYTES = 32;
+
+	/** Children of an inner node, <code>null</code> for leaves. */
+	private final Rope left, right;
+	/** Elements of a leaf, <code>null</code> for inner nodes. */
+	private final FplValue[] values;
+	final int size;
+	private final int height;
+
+	private Rope(FplValue[] values) {
+		left = null;
+		right = null;
+		this.values = values;
+		size = values.length;
+		height = 0;
+	}
+
+	private Rope(Rope left, Rope right) {
+		this.left = left;
+		this.right = right;
+		values = null;
+		size = left.size + right.size;
+		height = max(left.height, right.height) + 1;
+	}
+
+	/**
+	 * @param values Elements, not empty. The rope takes ownership of the array.
+	 * @return Rope with one leaf.
+	 */
+	static Rope leaf(FplValue... values) {
+		return new Rope(values);
+	}
+
+	/**
+	 * @param shape Buckets of a list, the elements are copied.
+	 * @return Rope with full leaves, <code>null</code> when there are no elements.
+	 */
+	static Rope fromShape(FplValue[][] shape) {
+		int size = 0;
+		for (FplValue[] bucket : shape) {
+			size += bucket.length;
+		}
+		if (size == 0) {
+			return null;
+		}
+		Rope[] leaves = new Rope[(size + MAX_LEAF - 1) / MAX_LEAF];
+		int bucketIdx = 0;
+		int inBucketIdx = 0;
+		int rest = size;
+		for (int leafIdx = 0; leafIdx < leaves.length; leafIdx++) {
+			FplValue[] leaf = new FplValue[Math.min(MAX_LEAF, rest)];
+			int inLeafIdx = 0;
+			while (inLeafIdx < leaf.length) {
+				int length = Math.min(leaf.length - inLeafIdx, shape[bucketIdx].length - inBucketIdx);
+				arraycopy(shape[bucketIdx], inBucketIdx, leaf, inLeafIdx, length);
+				inLeafIdx += length;
+				inBucketIdx += length;
+				if (inBucketIdx == shape[bucketIdx].length) {
+					bucketIdx++;
+					inBucketIdx = 0;
+				}
+			}
+			rest -= leaf.length;
+			leaves[leafIdx] = new Rope(leaf);
+		}
+		return build(leaves, 0, leaves.length);
+	}
+
+	private static Rope build(Rope[] nodes, int from, int to) {
+		if (to - from == 1) {
+			return nodes[from];
+		}
+		int middle = (from + to) >>> 1;
+		return new Rope(build(nodes, from, middle), build(nodes, middle, to));
+	}
+
+	/**
+	 * @param position Position, must be valid.
+	 * @return Element at position.
+	 */
+	FplValue get(int position) {
+		Rope node = this;
+		while (node.values == null) {
+			if (position < node.left.size) {
+				node = node.left;
+			} else {
+				position -= node.left.size;
+				node = node.right;
+			}
+		}
+		return node.values[position];
+	}
+
+	/**
+	 * @param position Position, must be valid.
+	 * @param element  New element at position.
+	 * @return Rope with replaced element, sharing all nodes not on the path to
+	 *         position.
+	 */
+	Rope set(int position, FplValue element) {
+		if (values != null) {
+			FplValue[] newValues = values.clone();
+			newValues[position] = element;
+			return new Rope(newValues);
+		}
+		if (position < left.size) {
+			return new Rope(left.set(position, element), right);
+		} else {
+			return new Rope(left, right.set(position - left.size, element));
+		}
+	}
+
+	/**
+	 * @param from First position (inclusive), must be valid.
+	 * @param to   Last position (exclusive), must be &gt; from and &lt;= size.
+	 * @return Rope with the elements in the range.
+	 */
+	Rope slice(int from, int to) {
+		if (from == 0 && to == size) {
+			return this;
+		}
+		if (values != null) {
+			return new Rope(copyOfRange(values, from, to));
+		}
+		int leftSize = left.size;
+		if (to <= leftSize) {
+			return left.slice(from, to);
+		}
+		if (from >= leftSize) {
+			return right.slice(from - leftSize, to - leftSize);
+		}
+		return concat(left.slice(from, leftSize), right.slice(0, to - leftSize));
+	}
+
+	/**
+	 * @param a Left rope, may be <code>null</code>.
+	 * @param b Right rope, may be <code>null</code>.
+	 * @return Concatenation of <code>a</code> and <code>b</code>, balanced.
+	 */
+	static Rope concat(Rope a, Rope b) {
+		if (a == null) {
+			return b;
+		}
+		if (b == null) {
+			return a;
+		}
+		if (a.size + b.size <= MAX_LEAF) {
+			FplValue[] values = new FplValue[a.size + b.size];
+			a.copyTo(values, 0);
+			b.copyTo(values, a.size);
+			return new Rope(values);
+		}
+		if (a.height > b.height) {
+			return balance(a.left, concat(a.right, b));
+		}
+		if (b.height > a.height) {
+			return balance(concat(a, b.left), b.right);
+		}
+		return new Rope(a, b);
+	}
+
+	private static Rope balance(Rope l, Rope r) {
+		if (l.height > r.height + 1) {
+			if (l.left.height >= l.right.height) {
+				return new Rope(l.left, new Rope(l.right, r));
+			}
+			return new Rope(new Rope(l.left, l.right.left), new Rope(l.right.right, r));
+		}
+		if (r.height > l.height + 1) {
+			if (r.right.height >= r.left.height) {
+				return new Rope(new Rope(l, r.left), r.right);
+			}
+			return new Rope(new Rope(l, r.left.left), new Rope(r.left.right, r.right));
+		}
+		return new Rope(l, r);
+	}
+
+	void copyTo(FplValue[] dst, int offset) {
+		if (values != null) {
+			arraycopy(values, 0, dst, offset, values.length);
+		} else {
+			left.copyTo(dst, offset);
+			right.copyTo(dst, offset + left.size);
+		}
+	}
+
+	Iterator<FplValue> iterator() {
+		return new Iterator<FplValue>() {
+			/** Right subtrees not visited yet. */
+			private final Rope[] pending = new Rope[height];
+			private int depth = 0;
+			private FplValue[] leaf;
+			private int inLeafIdx;
+
+			{
+				descend(Rope.this);
+			}
+
+			private void descend(Rope node) {
+				while (node.values == null) {
+					pending[depth++] = node.right;
+					node = node.left;
+				}
+				leaf = node.values;
+				inLeafIdx = 0;
+			}
+
+			@Override
+			public boolean hasNext() {
+				return leaf != null;
+			}
+
+			@Override
+			public FplValue next() {
+				if (leaf == null) {
+					throw new NoSuchElementException();
+				}
+				FplValue result = leaf[inLeafIdx++];
+				if (inLeafIdx == leaf.length) {
+					if (depth > 0) {
+						descend(pending[--depth]);
+					} else {
+						leaf = null;
+					}
+				}
+				return result;
+			}
+		};
+	}
+
+	/**
+	 * @return Number of leaves.
+	 */
+	int leafCount() {
+		return values != null ? 1 : left.leafCount() + right.leafCount();
+	}
+
+	/**
+	 * @return Estimated memory used by the nodes and leaf arrays (not the
+	 *         elements), see {@link FplList#estimatedBytes()}.
+	 */
+	long estimatedBytes() {
+		if (values != null) {
+			return NODE_BYTES + FplList.arrayBytes(values.length, FplList.REFERENCE_BYTES);
+		}
+		return NODE_BYTES + left.estimatedBytes() + right.estimatedBytes();
+	}
+
+	// only for testing
+	boolean isBalanced() {
+		if (values != null) {
+			return values.length > 0 && values.length <= MAX_LEAF;
+		}
+		return Math.abs(left.height - right.height) <= 1 && left.isBalanced() && right.isBalanced();
+	}
+}
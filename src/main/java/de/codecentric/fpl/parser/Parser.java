@@ -2,9 +2,11 @@ package de.codecentric.fpl.parser;
 
 import java.io.Closeable;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Set;
 
@@ -24,6 +26,10 @@ public class Parser implements Closeable, Iterator<FplValue> {
 	static {
 		keepCommentSymbols.add("def-function");
 	}
+	/** Quoted lists with more elements are not interned. */
+	private static final int MAX_INTERNED_SIZE = 16;
+	/** Interned quoted lists of constants, see {@link #intern(FplValue)}. */
+	private final Map<FplList, FplList> constantLists = new HashMap<>();
 	private Scanner scanner;
 	private Token lastToken;
 	private Token nextToken;
@@ -108,10 +114,40 @@ public class Parser implements Closeable, Iterator<FplValue> {
 		List<FplValue> elements = new ArrayList<FplValue>();
 		elements.add(new Symbol("quote", nextToken.getPosition(), nextToken.getComment()));
 		fetchNextToken(); // skip '
-		elements.add(value());
+		elements.add(intern(value()));
 		return FplList.fromValues(elements);
 	}
 
+	/**
+	 * Small quoted lists which contain only numbers, strings, nil or such lists
+	 * are shared within one parser, so identical literals use the same storage.
+	 */
+	private FplValue intern(FplValue value) {
+		if (value instanceof FplList && isConstant((FplList) value)) {
+			FplList list = (FplList) value;
+			FplList interned = constantLists.putIfAbsent(list, list);
+			return interned == null ? list : interned;
+		}
+		return value;
+	}
+
+	private static boolean isConstant(FplList list) {
+		if (list.size() > MAX_INTERNED_SIZE) {
+			return false;
+		}
+		for (FplValue value : list) {
+			if (value instanceof FplList) {
+				if (!isConstant((FplList) value)) {
+					return false;
+				}
+			} else if (!(value == null || value instanceof FplInteger || value instanceof FplDouble
+					|| value instanceof FplString)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
 	private FplValue list() throws ParseException {
 		fetchNextToken(); // skip LEFT_PAREN
 		expectNotEof("Unexpected end of source in list");
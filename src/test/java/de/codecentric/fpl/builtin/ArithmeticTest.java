@@ -1,15 +1,21 @@
 package de.codecentric.fpl.builtin;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
+import java.math.BigInteger;
+
 import org.junit.jupiter.api.Test;
 
 import de.codecentric.fpl.AbstractFplTest;
 import de.codecentric.fpl.EvaluationException;
+import de.codecentric.fpl.datatypes.FplBigInteger;
 import de.codecentric.fpl.datatypes.FplDouble;
 import de.codecentric.fpl.datatypes.FplInteger;
+import de.codecentric.fpl.datatypes.FplString;
 import de.codecentric.fpl.datatypes.FplValue;
+import de.codecentric.fpl.datatypes.Function;
 
 /**
  * Tests for the function interpreter.
@@ -72,6 +78,20 @@ public class ArithmeticTest extends AbstractFplTest {
 		assertEquals(7, i.getValue());
 	}
 
+	@Test
+	public void twoOperandsFastPath() throws Exception {
+		assertLongEquals(12, evaluate("times", "(* 3 4)"));
+		assertEquals(3.5, ((FplDouble) evaluate("divide", "(/ 7.0 2)")).getValue(), 0.00001);
+		EvaluationException e = assertThrows(EvaluationException.class, () -> {
+			evaluate("divide", "(/ 3 0)");
+		});
+		assertEquals("/ by zero", e.getMessage());
+		e = assertThrows(EvaluationException.class, () -> {
+			evaluate("modulo", "(% 3 \"bla\")");
+		});
+		assertEquals("% does not work on FplString", e.getMessage());
+	}
+
 	@Test
 	public void plusWithLongList() throws Exception {
 		FplInteger i = (FplInteger) evaluate("plus", "(+ 3 4 3 4 3 4 3 4 3 4 3 4 3 4)");
@@ -164,4 +184,138 @@ public class ArithmeticTest extends AbstractFplTest {
 		evaluate("plus", "(+ nil 3.0)");
 		});
 	}
+
+	@Test
+	public void twoOperandCall() throws Exception {
+		Function plus = (Function) scope.get("+");
+		assertLongEquals(7, plus.call2(scope, FplInteger.valueOf(3), FplInteger.valueOf(4)));
+		FplDouble d = (FplDouble) plus.call2(scope, FplInteger.valueOf(3), new FplDouble(0.5));
+		assertEquals(3.5, d.getValue(), 0.00001);
+		d = (FplDouble) ((Function) scope.get("*")).call2(scope, new FplDouble(0.5), FplInteger.valueOf(3));
+		assertEquals(1.5, d.getValue(), 0.00001);
+		assertLongEquals(8, ((Function) scope.get("**")).call2(scope, FplInteger.valueOf(2), FplInteger.valueOf(3)));
+		EvaluationException e = assertThrows(EvaluationException.class, () -> {
+			plus.call2(scope, FplInteger.valueOf(3), new FplString("4"));
+		});
+		assertEquals("+ does not work on FplString", e.getMessage());
+		assertThrows(EvaluationException.class, () -> {
+			((Function) scope.get("/")).call2(scope, FplInteger.valueOf(3), FplInteger.valueOf(0));
+		});
+	}
+
+	@Test
+	public void uncheckedOverflow() throws Exception {
+		assertLongEquals(Long.MIN_VALUE, evaluate("plus", "(+ 9223372036854775807 1)"));
+		assertLongEquals(0, evaluate("exp", "(** 2 64)"));
+	}
+
+	@Test
+	public void checkedArithmetic() throws Exception {
+		assertNull(evaluate("checked", "(checked-arithmetic 1)"));
+		FplBigInteger big = (FplBigInteger) evaluate("plus", "(+ 9223372036854775807 1)");
+		assertEquals(BigInteger.ONE.shiftLeft(63), big.getValue());
+		assertEquals("big-integer", big.typeName());
+		assertEquals("18446744073709551616", evaluate("exp", "(** 2 64)").toString());
+		assertEquals("-9223372036854775809", evaluate("minus", "(- -9223372036854775807 1 1)").toString());
+		assertEquals("85070591730234615847396907784232501249",
+				evaluate("times", "(* 9223372036854775807 9223372036854775807)").toString());
+		// Results which fit into a long are FplIntegers again
+		assertLongEquals(9223372036854775807L, evaluate("minus", "(- (+ 9223372036854775807 1) 1)"));
+		assertLongEquals(1, evaluate("divide", "(/ (* 9223372036854775807 2) 9223372036854775807 2)"));
+		assertLongEquals(0, evaluate("modulo", "(% (** 2 70) 1024)"));
+		assertEquals(new FplDouble(Math.pow(2, 64) + 0.5), evaluate("plus", "(+ (** 2 64) 0.5)"));
+		assertEquals("9223372036854775808", evaluate("minus", "(- -9223372036854775808)").toString());
+		assertEquals("-9223372036854775808", evaluate("minus", "(- (- -9223372036854775808))").toString());
+		assertLongEquals(1024, evaluate("exp", "(** 2 10)"));
+		assertLongEquals(4, evaluate("round", "(round 4)"));
+		assertEquals("9223372036854775808", evaluate("round", "(round (+ 9223372036854775807 1))").toString());
+		EvaluationException e = assertThrows(EvaluationException.class, () -> {
+			evaluate("divide", "(/ 3 0)");
+		});
+		assertEquals("/ by zero", e.getMessage());
+		assertLongEquals(1, evaluate("checked", "(checked-arithmetic nil)"));
+		assertLongEquals(Long.MIN_VALUE, evaluate("plus", "(+ 9223372036854775807 1)"));
+	}
+
+	@Test
+	public void checkedPowerTooLarge() throws Exception {
+		evaluate("checked", "(checked-arithmetic 1)");
+		assertEquals(BigInteger.ONE.shiftLeft(1 << 20), ((FplBigInteger) evaluate("exp", "(** 2 1048576)")).getValue());
+		assertLongEquals(1, evaluate("exp", "(** 1 2000000000)"));
+		assertLongEquals(1, evaluate("exp", "(** -1 2000000000)"));
+		EvaluationException e = assertThrows(EvaluationException.class, () -> {
+			evaluate("exp", "(** 3 2000000000)");
+		});
+		assertEquals("Result of ** too large", e.getMessage());
+		assertThrows(EvaluationException.class, () -> {
+			evaluate("exp", "(** 2 1048577)");
+		});
+		evaluate("checked", "(checked-arithmetic 0)");
+	}
+
+	@Test
+	public void checkedArithmeticAfterLambdaDefinition() throws Exception {
+		evaluate("def", "(def-function overflow () (* 9223372036854775807 2))");
+		assertLongEquals(-2, evaluate("call", "(overflow)"));
+		evaluate("checked", "(checked-arithmetic 1)");
+		assertEquals("18446744073709551614", evaluate("call", "(overflow)").toString());
+		evaluate("checked", "(checked-arithmetic 0)");
+		assertLongEquals(-2, evaluate("call", "(overflow)"));
+	}
+
+	@Test
+	public void exponentiationBySquaring() throws Exception {
+		for (long base = -5; base <= 5; base++) {
+			for (long exponent = 0; exponent < 70; exponent++) {
+				long expected = BigInteger.valueOf(base).pow((int) exponent).longValue();
+				assertEquals(expected, Arithmetic.power(base, exponent, false));
+			}
+		}
+		assertEquals(1L << 62, Arithmetic.power(2, 62, true));
+		assertThrows(ArithmeticException.class, () -> Arithmetic.power(2, 63, true));
+		assertThrows(ArithmeticException.class, () -> Arithmetic.power(2, -1, false));
+	}
+
+	@Test
+	public void listFunctions() throws Exception {
+		assertLongEquals(6, evaluate("sum", "(sum '(1 2 3))"));
+		assertLongEquals(0, evaluate("sum", "(sum '())"));
+		assertEquals(6.5, ((FplDouble) evaluate("sum", "(sum '(1 2 3.5))")).getValue(), 0.0);
+		assertLongEquals(-2, evaluate("min", "(min '(3 -2 7))"));
+		assertLongEquals(7, evaluate("max", "(max '(3 -2 7))"));
+		assertEquals(-2.5, ((FplDouble) evaluate("min", "(min '(3 -2.5 7))")).getValue(), 0.0);
+		assertEquals(2.5, ((FplDouble) evaluate("mean", "(mean '(1 2 3 4))")).getValue(), 0.0);
+		assertEquals(2.0, ((FplDouble) evaluate("stddev", "(stddev '(2 4 4 4 5 5 7 9))")).getValue(), 1e-12);
+		assertLongEquals(32, evaluate("dot", "(dot '(1 2 3) '(4 5 6))"));
+		assertEquals("(5 7 9)", evaluate("add", "(vector-add '(1 2 3) '(4 5 6))").toString());
+		assertEquals("(4 10 18)", evaluate("mul", "(vector-mul '(1 2 3) '(4 5 6))").toString());
+		assertEquals("(4.5 10.0)", evaluate("mul", "(vector-mul '(1 2) '(4.5 5))").toString());
+		assertEquals("(15 18)", evaluate("view", "(vector-add (sub-list (vector-add '(1 2 3) '(4 5 6)) 1 3) '(8 9))").toString());
+	}
+
+	@Test
+	public void listFunctionsWithBigIntegers() throws Exception {
+		assertLongEquals(Long.MIN_VALUE, evaluate("sum", "(sum '(9223372036854775807 1))"));
+		evaluate("checked", "(checked-arithmetic 1)");
+		assertEquals("9223372036854775808", evaluate("sum", "(sum '(9223372036854775807 1))").toString());
+		assertEquals("85070591730234615847396907784232501250",
+				evaluate("dot", "(dot '(9223372036854775807 1) '(9223372036854775807 1))").toString());
+		evaluate("def", "(def big (** 2 64))");
+		evaluate("checked", "(checked-arithmetic nil)");
+		// Big integers are accepted in unchecked mode, too
+		assertEquals("18446744073709551617", evaluate("sum", "(sum (list big 1))").toString());
+		assertEquals("18446744073709551616", evaluate("max", "(max (list 1 big 3))").toString());
+	}
+
+	@Test
+	public void listFunctionsWithIllegalParameters() throws Exception {
+		assertEquals("List is empty", assertThrows(EvaluationException.class, () -> evaluate("min", "(min '())"))
+				.getMessage());
+		assertEquals("List is empty", assertThrows(EvaluationException.class, () -> evaluate("mean", "(mean '())"))
+				.getMessage());
+		assertEquals("Not a number: \"a\"",
+				assertThrows(EvaluationException.class, () -> evaluate("sum", "(sum '(1 \"a\"))")).getMessage());
+		assertEquals("Lists have different sizes: 2 != 3",
+				assertThrows(EvaluationException.class, () -> evaluate("dot", "(dot '(1 2) '(1 2 3))")).getMessage());
+	}
 }
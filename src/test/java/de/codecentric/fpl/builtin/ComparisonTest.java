@@ -1,5 +1,6 @@
 package de.codecentric.fpl.builtin;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -193,4 +194,32 @@ public class ComparisonTest extends AbstractFplTest {
 			throw new RuntimeException("unexpected comparison result: " + valueAsLong);
 		}
 	}
+
+	@Test
+	public void bigIntegers() throws Exception {
+		evaluate("checked", "(checked-arithmetic 1)");
+		evaluate("def", "(def big (+ 9223372036854775807 1))");
+		assertTrue(evaluateToBoolean("lt", "(lt 9223372036854775807 big)"));
+		assertTrue(evaluateToBoolean("gt", "(gt big 1.0)"));
+		assertTrue(evaluateToBoolean("eq", "(eq big (+ 9223372036854775807 1))"));
+		assertFalse(evaluateToBoolean("eq", "(eq big \"a\")"));
+		assertTrue(evaluateToBoolean("ne", "(ne \"a\" big)"));
+	}
+
+	@Test
+	public void compareNatural() throws Exception {
+		assertEquals(FplInteger.valueOf(-1), evaluate("compare", "(compare-natural 1 2)"));
+		assertEquals(FplInteger.valueOf(0), evaluate("compare", "(compare-natural 2 2.0)"));
+		assertEquals(FplInteger.valueOf(1), evaluate("compare", "(compare-natural 2.5 2)"));
+		assertEquals(FplInteger.valueOf(-1), evaluate("compare", "(compare-natural nil -5)"));
+		assertEquals(FplInteger.valueOf(0), evaluate("compare", "(compare-natural nil nil)"));
+		assertEquals(FplInteger.valueOf(1), evaluate("compare", "(compare-natural \"a\" 1000)"));
+		assertEquals(FplInteger.valueOf(-1), evaluate("compare", "(compare-natural \"a\" \"b\")"));
+		evaluate("checked", "(checked-arithmetic 1)");
+		assertEquals(FplInteger.valueOf(1),
+				evaluate("compare", "(compare-natural (+ 9223372036854775807 1) 9223372036854775807)"));
+		assertEquals("Can't compare list: (1)", assertThrows(EvaluationException.class, () -> {
+			evaluate("compare", "(compare-natural 1 '(1))");
+		}).getMessage());
+	}
 }
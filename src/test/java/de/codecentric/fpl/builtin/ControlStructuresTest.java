@@ -2,8 +2,12 @@ package de.codecentric.fpl.builtin;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.fail;
 
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
 import org.junit.jupiter.api.Test;
 
 import de.codecentric.fpl.AbstractFplTest;
@@ -115,6 +119,19 @@ public class ControlStructuresTest extends AbstractFplTest {
 		}
 	}
 
+	@Test
+	public void printStackTraceOfThrow() throws Exception {
+		evaluate("bam-source", "(def-function bam (x) (throw \"bam-message\"))");
+		EvaluationException e = assertThrows(EvaluationException.class, () -> evaluate("bam-call", "(bam 1)"));
+		StringWriter writer = new StringWriter();
+		e.printStackTrace(new PrintWriter(writer));
+		String[] lines = writer.toString().split("\\R");
+		assertEquals(EvaluationException.class.getName() + ": bam-message", lines[0]);
+		assertEquals("\tat fpl.throw(bam-source:1)", lines[1]);
+		assertEquals("\tat fpl.bam(bam-call:1)", lines[2]);
+		assertEquals(3, lines.length);
+	}
+
 	@Test
 	public void tryCatchSuccess() throws Exception {
 		evaluate("catcher",
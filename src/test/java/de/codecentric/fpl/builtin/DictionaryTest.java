@@ -399,4 +399,12 @@ public class DictionaryTest extends AbstractFplTest {
 	private void createDictionary() throws Exception {
 		evaluate("create", "(def test-dict (dict \"a\" 1 \"b\" 2 \"c\" 3 ))");
 	}
+
+	@Test
+	public void listsAsKeys() throws Exception {
+		evaluate("create", "(def list-dict (dict))");
+		evaluate("put", "(dict-put list-dict '(1 \"a\") 42)");
+		assertEquals(FplInteger.valueOf(42), evaluate("get", "(dict-get list-dict (list 1 \"a\"))"));
+		assertNull(evaluate("get", "(dict-get list-dict (list 1 \"b\"))"));
+	}
 }
@@ -353,4 +353,101 @@ public class LambdaTest extends AbstractFplTest {
 		assertEquals("outer-variable", ((FplString) result.get(2)).getContent());
 		assertNull(result.get(3));
 	}
+
+	@Test
+	public void closureOverOuterParameters() throws Exception {
+		evaluate("def", "(def-function adder (a) (lambda (b) (lambda (c) (+ a b c))))");
+		assertEquals(FplInteger.valueOf(6), evaluate("call", "(((adder 1) 2) 3)"));
+		assertEquals(FplInteger.valueOf(60), evaluate("call", "(((adder 10) 20) 30)"));
+	}
+
+	@Test
+	public void closureOverShadowedOuterParameter() throws Exception {
+		evaluate("def", "(def-function outer (a) (lambda (b) (put a 10) (+ a b)))");
+		assertEquals(FplInteger.valueOf(12), evaluate("call", "((outer 1) 2)"));
+	}
+
+	@Test
+	public void closureOverOuterParameterWithLocalScope() throws Exception {
+		evaluate("def", "(def-function outer (a) (lambda (b) (scope (def a 100) (+ a b))))");
+		assertEquals(FplInteger.valueOf(102), evaluate("call", "((outer 1) 2)"));
+		evaluate("def", "(def-function outer2 (a) (lambda (b) (scope (def c 100) (+ a b c))))");
+		assertEquals(FplInteger.valueOf(103), evaluate("call", "((outer2 1) 2)"));
+	}
+
+	@Test
+	public void tailRecursionWithIfElse() throws Exception {
+		evaluate("def", "(def-function sum-to (n acc) (if-else (eq n 0) acc (sum-to (- n 1) (+ acc n))))");
+		assertEquals(FplInteger.valueOf(5000050000L), evaluate("call", "(sum-to 100000 0)"));
+	}
+
+	@Test
+	public void tailRecursionWithIfAndSequential() throws Exception {
+		evaluate("def", "(def-function count-down (n) (sequential (def x n) (if (gt n 0) (count-down (- n 1)))))");
+		assertNull(evaluate("call", "(count-down 100000)"));
+	}
+
+	@Test
+	public void tailRecursionWithCondAndScope() throws Exception {
+		evaluate("def", "(def-function collect (n acc) (cond (eq n 0) acc (scope (def m (- n 1)) (collect m (add-front n acc)))))");
+		FplList list = (FplList) evaluate("call", "(collect 100000 '())");
+		assertEquals(100000, list.size());
+		assertEquals(FplInteger.valueOf(1), list.get(0));
+	}
+
+	@Test
+	public void tailRecursionWithVarArgs() throws Exception {
+		evaluate("def", "(def-function last-arg (n rest...) (if-else (eq n 0) rest (last-arg (- n 1) n n)))");
+		assertEquals("(1 1)", evaluate("call", "(last-arg 100000)").toString());
+	}
+
+	@Test
+	public void tailPositionCallOfOtherFunctionWithSameName() throws Exception {
+		evaluate("def", "(def-function f (n) (if (gt n 0) (f (- n 1))))");
+		evaluate("put", "(put f2 f)");
+		evaluate("redefine", "(set f (lambda (n) (* n 2)))");
+		assertEquals(FplInteger.valueOf(8), evaluate("call", "(f2 5)"));
+	}
+
+	@Test
+	public void redefinedControlStructureGetsNoTailCall() throws Exception {
+		evaluate("def", "(def-function count-down (n) (if-else (gt n 0) (count-down (- n 1)) \"done\"))");
+		assertEquals(new FplString("done"), evaluate("call", "(count-down 3)"));
+		evaluate("redefine", "(set if-else (lambda (c a b) (cond c (list a) (list b))))");
+		assertEquals("((\"done\"))", evaluate("call", "(count-down 1)").toString());
+	}
+
+	@Test
+	public void tailRecursionWithFunctionInAccumulator() throws Exception {
+		evaluate("add", "(def-function my-add (a b) (+ a b))");
+		evaluate("def", "(def-function sum-to (n acc) (if-else (eq n 0) acc (sum-to (- n 1) (my-add acc n))))");
+		assertEquals(FplInteger.valueOf(5000050000L), evaluate("call", "(sum-to 100000 0)"));
+	}
+
+	@Test
+	public void recursiveFunctionInTailCallParameterIsLazy() throws Exception {
+		evaluate("forever", "(def-function forever (x) (+ (forever x) (forever x)))");
+		evaluate("def", "(def-function f (n unused) (if-else (gt n 0) (f (- n 1) (forever n)) 0))");
+		assertEquals(FplInteger.valueOf(0), evaluate("call", "(f 3 0)"));
+	}
+
+	@Test
+	public void tailCallParametersAreLazy() throws Exception {
+		evaluate("def", "(def-function f (n unused) (if-else (gt n 0) (f (- n 1) (throw \"boom\")) 0))");
+		assertEquals(FplInteger.valueOf(0), evaluate("call", "(f 3 0)"));
+	}
+
+	@Test
+	public void curriedSelfCallIsNotTailCall() throws Exception {
+		evaluate("def", "(def-function plus (a b) (if-else (eq a 0) b (plus (- a 1))))");
+		assertTrue(evaluate("call", "(plus 1 7)") instanceof AbstractFunction);
+	}
+
+	@Test
+	public void curriedControlStructureIsNotTailCall() throws Exception {
+		evaluate("def", "(def-function f (n) (if-else (gt n 0) (f (- n 1))))");
+		FplValue curried = evaluate("call", "(f 1)");
+		assertTrue(curried instanceof AbstractFunction);
+		assertTrue(evaluate("call", "((f 1) 0)") instanceof AbstractFunction);
+	}
 }
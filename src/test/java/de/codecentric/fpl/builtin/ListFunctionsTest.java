@@ -2,6 +2,7 @@ package de.codecentric.fpl.builtin;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.fail;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
@@ -11,7 +12,9 @@ import org.junit.jupiter.api.Test;
 
 import de.codecentric.fpl.AbstractFplTest;
 import de.codecentric.fpl.EvaluationException;
+import de.codecentric.fpl.datatypes.FplDictionary;
 import de.codecentric.fpl.datatypes.FplInteger;
+import de.codecentric.fpl.datatypes.FplString;
 import de.codecentric.fpl.datatypes.FplValue;
 import de.codecentric.fpl.datatypes.Symbol;
 import de.codecentric.fpl.datatypes.list.AbstractListTest;
@@ -339,4 +342,51 @@ public class ListFunctionsTest extends AbstractFplTest {
 		assertEquals(2, list.size());
 		});
 	}
+
+	@Test
+	public void listBuilder() throws Exception {
+		evaluate("builder", "(def builder (list-builder))");
+		evaluate("add", "(from-to (lambda (i) (list-builder-add builder i)) 0 98)");
+		evaluate("add", "(list-builder-add builder 98 99)");
+		assertEquals(FplInteger.valueOf(100), evaluate("size", "(list-builder-size builder)"));
+		FplList list = (FplList) evaluate("build", "(list-builder-build builder)");
+		AbstractListTest.check(list, 0, 100);
+		EvaluationException e = assertThrows(EvaluationException.class, () -> {
+			evaluate("add", "(list-builder-add builder 100)");
+		});
+		assertEquals("List has already been built", e.getMessage());
+		assertThrows(EvaluationException.class, () -> {
+			evaluate("build", "(list-builder-build builder)");
+		});
+	}
+
+	@Test
+	public void listBuilderEmpty() throws Exception {
+		assertEquals(FplList.EMPTY_LIST, evaluate("build", "(list-builder-build (list-builder))"));
+		EvaluationException e = assertThrows(EvaluationException.class, () -> {
+			evaluate("add", "(list-builder-add '(1) 2)");
+		});
+		assertEquals("Not a list builder: (1)", e.getMessage());
+	}
+
+	@Test
+	public void footprintAndCompaction() throws Exception {
+		FplDictionary footprint = (FplDictionary) evaluate("footprint", "(list-footprint '(1 2 3))");
+		assertEquals(new FplString("buckets"), footprint.get(new FplString("storage")));
+		assertEquals(FplInteger.valueOf(3), footprint.get(new FplString("size")));
+		assertEquals(FplInteger.valueOf(1), footprint.get(new FplString("arrays")));
+		assertNull(footprint.get(new FplString("fragmented")));
+		assertEquals(FplInteger.valueOf(88), footprint.get(new FplString("bytes")));
+
+		scope.put("fragmented", AbstractListTest.create(0, 100, 1, 1, 1, 1, 1, 1, 94));
+		footprint = (FplDictionary) evaluate("footprint", "(list-footprint fragmented)");
+		assertEquals(FplInteger.valueOf(1), footprint.get(new FplString("fragmented")));
+		FplList compacted = (FplList) evaluate("compact", "(compact-list fragmented)");
+		assertFalse(compacted.isFragmented());
+		AbstractListTest.check(compacted, 0, 100);
+
+		FplList global = (FplList) evaluate("def-global", "(def-global global fragmented)");
+		assertFalse(global.isFragmented());
+		AbstractListTest.check(global, 0, 100);
+	}
 }
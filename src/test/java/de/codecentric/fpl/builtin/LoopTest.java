@@ -310,6 +310,35 @@ public class LoopTest extends AbstractFplTest {
 		}
 	}
 
+	@Test
+	public void sortNatural() throws Exception {
+		assertEquals("(nil 1 1.5 3 \"a\" \"b\")",
+				evaluate("sort", "(sort compare-natural '(3 \"b\" 1.5 \"a\" nil 1))").toString());
+		assertEquals("(nil 1 1.5 3 \"a\" \"b\")",
+				evaluate("sort", "(sort-natural '(3 \"b\" 1.5 \"a\" nil 1))").toString());
+		assertEquals("(1 2 3)", evaluate("sort", "(sort-natural '(3 1 2))").toString());
+		assertEquals("(-1.5 0.5 2.0)", evaluate("sort", "(sort-natural '(2.0 -1.5 0.5))").toString());
+		assertEquals("(1 2 3)", evaluate("sort", "(sort-natural (vector-add '(2 0 1) '(1 1 1)))").toString());
+		assertEquals("()", evaluate("sort", "(sort-natural '())").toString());
+	}
+
+	@Test
+	public void sortByKey() throws Exception {
+		assertEquals("(3 2 1)", evaluate("sort", "(sort-by-key (lambda (x) (- x)) '(2 3 1))").toString());
+		evaluate("count", "(put-global count 0)");
+		assertEquals("((1 \"b\") (1 \"c\") (2 \"a\"))", evaluate("sort",
+				"(sort-by-key (lambda (x) (put-global count (+ count 1)) (first x)) '((2 \"a\") (1 \"b\") (1 \"c\")))")
+				.toString());
+		assertEquals(FplInteger.valueOf(3), scope.get("count"));
+	}
+
+	@Test
+	public void mapToSortedDictWithNaturalOrder() throws Exception {
+		FplSortedDictionary dict = (FplSortedDictionary) evaluate("dict",
+				"(map-to-sorted-dict (lambda (x i) x) (lambda (old x i) i) compare-natural '(3 1.5 2))");
+		assertEquals("[1.5, 2, 3]", dict.keySet().toString());
+	}
+
 	@Test
 	public void sortWithExceptionInComparator() throws Exception {
 		evaluate("values", "(def values '(4 5 9 8 7 8 6))");
@@ -548,4 +577,44 @@ public class LoopTest extends AbstractFplTest {
 		FplList result = (FplList) evaluate("combine-one-empty", "(combine (lambda (a b) (+ a b)) list-1 list-2)");
 		assertTrue(result.isEmpty());
 	}
+
+	@Test
+	public void lazyPipeline() throws Exception {
+		evaluate("counter", "(def calls 0)");
+		FplValue sequence = evaluate("pipeline", "(def seq (lazy-map (lambda (x i) (set calls (+ calls 1)) (* x x)) "
+				+ "(lazy-filter (lambda (x i) (eq (% x 2) 0)) (lazy-map-sequence (lambda (i) i) 0 10))))");
+		assertEquals("sequence", sequence.typeName());
+		assertEquals(FplInteger.valueOf(0), evaluate("calls", "calls"));
+		assertEquals(FplInteger.valueOf(120), evaluate("reduce", "(reduce (lambda (acc x i) (+ acc x)) 0 seq)"));
+		assertEquals(FplInteger.valueOf(5), evaluate("calls", "calls"));
+		assertEquals("(0 1 4 9 16)", evaluate("realize", "(realize (lazy-map (lambda (x i) (/ x 4)) seq))").toString());
+		assertEquals(FplInteger.valueOf(5), evaluate("size", "(size seq)"));
+		assertEquals(FplInteger.valueOf(64), evaluate("for-each", "(for-each (lambda (x i) x) seq)"));
+	}
+
+	@Test
+	public void lazyFlatMap() throws Exception {
+		FplList result = (FplList) evaluate("flat-map",
+				"(realize (lazy-flat-map (lambda (x i) (if-else (eq x 1) '() (lazy-map-sequence (lambda (j) j) 0 x))) '(0 1 2 3)))");
+		assertEquals("(0 1 0 1 2)", result.toString());
+		EvaluationException e = assertThrows(EvaluationException.class, () -> {
+			evaluate("flat-map", "(realize (lazy-flat-map (lambda (x i) x) '(1)))");
+		});
+		assertEquals("Not a list or sequence: 1", e.getMessage());
+	}
+
+	@Test
+	public void realizeList() throws Exception {
+		FplList list = (FplList) evaluate("realize", "(realize '(1 2 3))");
+		assertEquals(3, list.size());
+		assertTrue(((FplList) evaluate("realize", "(realize (lazy-map-sequence (lambda (i) i) 3 3))")).isEmpty());
+		EvaluationException e = assertThrows(EvaluationException.class, () -> {
+			evaluate("realize", "(realize 1)");
+		});
+		assertEquals("Not a list or sequence: 1", e.getMessage());
+		e = assertThrows(EvaluationException.class, () -> {
+			evaluate("lazy-map-sequence", "(lazy-map-sequence (lambda (i) i) 3 2)");
+		});
+		assertEquals("start > end", e.getMessage());
+	}
 }
@@ -3,6 +3,9 @@ package de.codecentric.fpl.data;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
 import org.junit.jupiter.api.Test;
 
 import de.codecentric.fpl.EvaluationException;
@@ -56,4 +59,58 @@ public class EvaluationExceptionTest {
 		StackTraceElement[] stackTrace = ee.getStackTrace();
 		assertEquals("class", stackTrace[0].getClassName());
 	}
+
+	@Test
+	public void addAfterStackTraceRequested() {
+		EvaluationException ee = new EvaluationException("foo");
+		int javaLength = ee.getStackTrace().length;
+		ee.add(new StackTraceElement("class", "inner", "file", 1));
+		assertEquals("inner", ee.getStackTrace()[0].getMethodName());
+		ee.add(new StackTraceElement("class", "outer", "file", 2));
+		StackTraceElement[] stackTrace = ee.getStackTrace();
+		assertEquals(javaLength + 2, stackTrace.length);
+		assertEquals("inner", stackTrace[0].getMethodName());
+		assertEquals("outer", stackTrace[1].getMethodName());
+		assertEquals(2, ee.getAdded());
+	}
+
+	@Test
+	public void withoutJavaStackTrace() {
+		EvaluationException ee = new EvaluationException("foo", 42, false);
+		assertEquals(0, ee.getStackTrace().length);
+		ee.add(new StackTraceElement("class", "inner", "file", 1));
+		ee.add(new StackTraceElement("class", "outer", "file", 2));
+		StackTraceElement[] stackTrace = ee.getStackTrace();
+		assertEquals(2, stackTrace.length);
+		assertEquals("outer", stackTrace[1].getMethodName());
+		assertEquals(42, ee.getId());
+		assertTrue(ee.stackTraceAsString().contains("outer(file:2)"));
+	}
+
+	@Test
+	public void printStackTraceContainsFplStackTrace() {
+		EvaluationException ee = new EvaluationException("foo");
+		ee.add(new StackTraceElement("class", "inner", "file", 1));
+		StringWriter writer = new StringWriter();
+		ee.printStackTrace(new PrintWriter(writer));
+		assertTrue(writer.toString().contains("class.inner(file:1)"));
+	}
+
+	@Test
+	public void printStackTraceWithCauseAndSuppressed() {
+		EvaluationException cause = new EvaluationException("bar", 0, false);
+		cause.add(new StackTraceElement("class", "cause", "file", 3));
+		EvaluationException ee = new EvaluationException("foo", cause);
+		ee.add(new StackTraceElement("class", "inner", "file", 1));
+		ee.addSuppressed(new EvaluationException("baz"));
+		StringWriter writer = new StringWriter();
+		ee.printStackTrace(new PrintWriter(writer));
+		String text = writer.toString();
+		assertTrue(text.contains("class.inner(file:1)"));
+		assertTrue(text.contains("Suppressed: " + EvaluationException.class.getName() + ": baz"));
+		assertTrue(text.contains("Caused by: " + EvaluationException.class.getName() + ": bar"));
+		assertTrue(text.contains("class.cause(file:3)"));
+		// The stack trace of the suppressed exception ends like the one of ee
+		assertTrue(text.contains("... " + (ee.getStackTrace().length - 2) + " more"));
+	}
 }
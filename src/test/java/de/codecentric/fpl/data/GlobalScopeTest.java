@@ -0,0 +1,90 @@
+package de.codecentric.fpl.data;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Collections;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import de.codecentric.fpl.datatypes.FplString;
+import de.codecentric.fpl.datatypes.FplValue;
+
+public class GlobalScopeTest {
+	private GlobalScope global;
+
+	@BeforeEach
+	public void before() {
+		global = new GlobalScope("global");
+	}
+
+	@Test
+	public void onlyWatchedKeysChangeVersion() throws ScopeException {
+		long version = global.getBindingVersion();
+		global.define("a", new FplString("a"));
+		global.put("b", new FplString("b"));
+		assertEquals(version, global.getBindingVersion());
+		global.watchBinding("a");
+		global.put("a", new FplString("c"));
+		assertTrue(version != global.getBindingVersion());
+		version = global.getBindingVersion();
+		global.replaceLocal("a", new FplString("d"));
+		assertTrue(version != global.getBindingVersion());
+		version = global.getBindingVersion();
+		global.bindingsChanged();
+		assertTrue(version != global.getBindingVersion());
+		assertEquals("GlobalScope<global>", global.toString());
+	}
+
+	@Test
+	public void changesOfOtherScopesDontChangeVersion() throws ScopeException {
+		global.watchBinding("a");
+		long version = global.getBindingVersion();
+		new MapScope("inner", global).put("a", new FplString("a"));
+		GlobalScope other = new GlobalScope("other");
+		other.watchBinding("a");
+		other.put("a", new FplString("a"));
+		assertEquals(version, global.getBindingVersion());
+	}
+
+	@Test
+	public void visibility() throws ScopeException {
+		global.define("a", new FplString("a"));
+		MapScope inner = new MapScope("inner", global);
+		assertTrue(global.isVisibleFrom(global, "a"));
+		assertTrue(global.isVisibleFrom(inner, "a"));
+		inner.define("b", new FplString("b"));
+		assertTrue(global.isVisibleFrom(inner, "a"));
+		inner.define("a", new FplString("c"));
+		assertFalse(global.isVisibleFrom(inner, "a"));
+		assertFalse(global.isVisibleFrom(new MapScope("other"), "a"));
+		assertFalse(global.isVisibleFrom(new PipelineScope("a", global), "a"));
+	}
+
+	@Test
+	public void visibilityAtRuntime() throws ScopeException {
+		global.define("a", new FplString("a"));
+		MapScope inner = new MapScope("inner", global);
+		assertTrue(global.isStillVisibleFrom(inner, "a"));
+		// Parameter names are checked at compile time
+		ParameterScope parameters = new ParameterScope("params", inner, Collections.singletonMap("a", 0),
+				new FplValue[] { new FplString("p") });
+		assertTrue(global.isStillVisibleFrom(parameters, "a"));
+		inner.define("b", new FplString("b"));
+		assertTrue(global.isStillVisibleFrom(parameters, "a"));
+		inner.define("a", new FplString("c"));
+		assertFalse(global.isStillVisibleFrom(parameters, "a"));
+		assertFalse(global.isStillVisibleFrom(new MapScope("other"), "a"));
+		assertFalse(global.isStillVisibleFrom(new PipelineScope("a", global), "a"));
+	}
+
+	@Test
+	public void findGlobalScope() {
+		assertTrue(global == GlobalScope.of(new MapScope("inner", global)));
+		assertNull(GlobalScope.of(new MapScope("other")));
+		assertNull(GlobalScope.of(null));
+	}
+}
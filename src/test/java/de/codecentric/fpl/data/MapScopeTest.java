@@ -1,6 +1,7 @@
 package de.codecentric.fpl.data;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -141,6 +142,15 @@ public class MapScopeTest {
 		});
 	}
 
+	@Test
+	public void transparentUntilFirstWrite() throws ScopeException {
+		assertTrue(inner.isTransparent("foo"));
+		inner.define("foo", new FplString("bar"));
+		assertFalse(inner.isTransparent("foo"));
+		inner.put("foo", null);
+		assertFalse(inner.isTransparent("foo"));
+	}
+
 	@Test
 	public void exception() {
 		ScopeException se = new ScopeException("huhu", new Error("bäm"));
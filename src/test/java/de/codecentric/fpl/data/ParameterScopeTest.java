@@ -1,6 +1,7 @@
 package de.codecentric.fpl.data;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -44,6 +45,12 @@ public class ParameterScopeTest {
 		inner = null;
 	}
 
+	@Test
+	public void parameterIsNotTransparent() {
+		assertTrue(inner.isTransparent("foo"));
+		assertFalse(inner.isTransparent("a"));
+	}
+
 	@Test
 	public void emptyScope() {
 		assertEquals(new FplString("foo"), inner.getParameter(0));
@@ -168,4 +175,15 @@ public class ParameterScopeTest {
 		Parameter p = new Parameter(new Symbol("foo"), 0);
 		assertEquals("parameter", p.typeName());
 	}
+
+	@Test
+	public void localMapAllocatedOnFirstWrite() throws ScopeException {
+		assertTrue(inner.localMap().isEmpty());
+		assertNull(inner.replaceLocal("c", new FplString("baz")));
+		assertNull(inner.put("c", null));
+		assertEquals(2, inner.keySet().size());
+		inner.put("c", new FplString("baz"));
+		assertEquals(new FplString("baz"), inner.getLocal("c"));
+		assertEquals(3, inner.keySet().size());
+	}
 }
@@ -0,0 +1,147 @@
+package de.codecentric.fpl.datatypes;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import de.codecentric.fpl.AbstractFplTest;
+import de.codecentric.fpl.EvaluationException;
+import de.codecentric.fpl.datatypes.list.BoundCall;
+import de.codecentric.fpl.datatypes.list.FoldedCall;
+import de.codecentric.fpl.datatypes.list.FplList;
+import de.codecentric.fpl.datatypes.list.FunctionCall;
+
+public class CompilerTest extends AbstractFplTest {
+
+	@Test
+	public void listBecomesFunctionCall() throws Exception {
+		FplValue code = Compiler.compile(parser("call", "(+ 1 2)").next());
+		assertTrue(code instanceof FunctionCall);
+		FunctionCall call = (FunctionCall) code;
+		assertEquals(new Symbol("+"), call.getFunction());
+		assertEquals(2, call.getNumberOfParameters());
+		assertEquals("(+ 1 2)", call.toString());
+		assertEquals(FplInteger.valueOf(3), call.evaluate(scope));
+	}
+
+	@Test
+	public void quotedListStaysData() throws Exception {
+		FunctionCall code = (FunctionCall) Compiler.compile(parser("quote", "(quote (a (b c)))").next());
+		FplValue quoted = code.evaluate(scope);
+		assertFalse(quoted instanceof FunctionCall);
+		assertFalse(((FplList) quoted).get(1) instanceof FunctionCall);
+		assertEquals("(a (b c))", quoted.toString());
+	}
+
+	@Test
+	public void emptyListAndConstantsAreKept() throws Exception {
+		assertTrue(FplList.EMPTY_LIST == Compiler.compile(FplList.EMPTY_LIST));
+		FplInteger i = FplInteger.valueOf(42);
+		assertTrue(i == Compiler.compile(i));
+		assertEquals(null, Compiler.compile(null));
+	}
+
+	@Test
+	public void symbolsBecomeParameters() throws Exception {
+		Map<String, Integer> parameterMap = new HashMap<>();
+		parameterMap.put("x", 0);
+		FunctionCall code = (FunctionCall) Compiler.compile(parser("call", "(+ x y)").next(), parameterMap, scope);
+		assertTrue(code.get(1) instanceof Parameter);
+		assertTrue(code.get(2) instanceof Symbol);
+	}
+
+	@Test
+	public void topLevelKeepsParameters() throws Exception {
+		Parameter p = new Parameter(new Symbol("x"), 0);
+		assertTrue(p == Compiler.compile(p));
+	}
+
+	@Test
+	public void emptyListIsNoFunctionCall() throws Exception {
+		assertThrows(IllegalArgumentException.class, () -> {
+			new FunctionCall(FplList.EMPTY_LIST);
+		});
+	}
+
+	@Test
+	public void constantExpressionIsFolded() throws Exception {
+		FplValue code = Compiler.compile(parser("call", "(+ 1 (* 2 3))").next(), new HashMap<>(), scope);
+		assertTrue(code instanceof FoldedCall);
+		assertEquals(FplInteger.valueOf(7), ((FoldedCall) code).getValue());
+		assertEquals("(+ 1 (* 2 3))", code.toString());
+		assertEquals(FplInteger.valueOf(7), code.evaluate(scope));
+	}
+
+	@Test
+	public void quoteIsFolded() throws Exception {
+		FplValue code = Compiler.compile(parser("call", "(quote (a b))").next(), new HashMap<>(), scope);
+		assertTrue(code instanceof FoldedCall);
+		assertEquals("(a b)", code.evaluate(scope).toString());
+	}
+
+	@Test
+	public void foldedQuoteKeepsIdentity() throws Exception {
+		evaluate("def", "(def-function q () (quote (a b)))");
+		FplValue first = evaluate("call", "(q)");
+		assertTrue(first == evaluate("call", "(q)"));
+		// Folded again after a change of the binding version
+		evaluate("checked", "(checked-arithmetic 1)");
+		assertTrue(first == evaluate("call", "(q)"));
+	}
+
+	@Test
+	public void failingConstantExpressionIsNotFolded() throws Exception {
+		FplValue code = Compiler.compile(parser("call", "(/ 1 0)").next(), new HashMap<>(), scope);
+		assertTrue(code instanceof BoundCall);
+		assertThrows(EvaluationException.class, () -> code.evaluate(scope));
+	}
+
+	@Test
+	public void builtinIsBound() throws Exception {
+		Map<String, Integer> parameterMap = new HashMap<>();
+		parameterMap.put("x", 0);
+		FplValue code = Compiler.compile(parser("call", "(if x 1)").next(), parameterMap, scope);
+		assertTrue(code instanceof BoundCall);
+		assertTrue(scope.get("if") == ((BoundCall) code).getBound());
+	}
+
+	@Test
+	public void userFunctionIsNotBound() throws Exception {
+		evaluate("def", "(def-function foo (x) x)");
+		FplValue code = Compiler.compile(parser("call", "(foo 1)").next(), new HashMap<>(), scope);
+		assertFalse(code instanceof BoundCall);
+	}
+
+	@Test
+	public void redefinedBuiltinIsSeen() throws Exception {
+		evaluate("def", "(def-function seven () (+ 3 4))");
+		evaluate("def", "(def-function add (a b) (+ a b))");
+		assertEquals(FplInteger.valueOf(7), evaluate("call", "(seven)"));
+		assertEquals(FplInteger.valueOf(5), evaluate("call", "(add 2 3)"));
+		evaluate("set", "(set + -)");
+		assertEquals(FplInteger.valueOf(-1), evaluate("call", "(seven)"));
+		assertEquals(FplInteger.valueOf(-1), evaluate("call", "(add 2 3)"));
+	}
+
+	@Test
+	public void locallyShadowedBuiltinIsSeen() throws Exception {
+		evaluate("def", "(def-function add (a b) (scope (def + *) (+ a b)))");
+		assertEquals(FplInteger.valueOf(6), evaluate("call", "(add 2 3)"));
+	}
+
+	@Test
+	public void restoredBuiltinIsBoundAgain() throws Exception {
+		evaluate("def", "(def-function seven () (+ 3 4))");
+		evaluate("def", "(def plus +)");
+		evaluate("set", "(set + -)");
+		assertEquals(FplInteger.valueOf(-1), evaluate("call", "(seven)"));
+		evaluate("set", "(set + plus)");
+		assertEquals(FplInteger.valueOf(7), evaluate("call", "(seven)"));
+	}
+}
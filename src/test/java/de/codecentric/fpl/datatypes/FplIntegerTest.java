@@ -17,22 +17,39 @@ public class FplIntegerTest {
 		assertEquals(0, a.getValue());
 	}
 
+	@Test
+	public void cacheBoundaries() {
+		assertTrue(FplInteger.valueOf(-1024) == FplInteger.valueOf(-1024));
+		assertTrue(FplInteger.valueOf(65535) == FplInteger.valueOf(65535));
+	}
+
+	@Test
+	public void cacheRangeIsClamped() {
+		assertEquals(-1024, FplInteger.cacheLow(-1024));
+		assertEquals(0, FplInteger.cacheLow(5));
+		assertEquals(1 - FplInteger.MAX_CACHE_SIZE, FplInteger.cacheLow(Integer.MIN_VALUE));
+		assertEquals(65535, FplInteger.cacheHigh(-1024, 65535));
+		assertEquals(0, FplInteger.cacheHigh(-1024, -5));
+		assertEquals(FplInteger.MAX_CACHE_SIZE - 1, FplInteger.cacheHigh(0, Integer.MAX_VALUE));
+		assertEquals(0, FplInteger.cacheHigh(1 - FplInteger.MAX_CACHE_SIZE, Integer.MAX_VALUE));
+	}
+
 	@Test
 	public void smallerThanSmallesCacheValue() {
-		FplInteger a = FplInteger.valueOf(-200);
-		FplInteger b = FplInteger.valueOf(-200);
+		FplInteger a = FplInteger.valueOf(-1025);
+		FplInteger b = FplInteger.valueOf(-1025);
 		assertTrue(a != b); // must not be cached
 		assertEquals(a, b);
-		assertEquals(-200, a.getValue());
+		assertEquals(-1025, a.getValue());
 	}
 	
 	@Test
 	public void largerThanLargestCacheValue() {
-		FplInteger a = FplInteger.valueOf(200);
-		FplInteger b = FplInteger.valueOf(200);
+		FplInteger a = FplInteger.valueOf(65536);
+		FplInteger b = FplInteger.valueOf(65536);
 		assertTrue(a != b); // must not be cached
 		assertEquals(a, b);
-		assertEquals(200, a.getValue());
+		assertEquals(65536, a.getValue());
 	}
 	
     @Test
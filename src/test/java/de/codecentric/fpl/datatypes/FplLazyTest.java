@@ -4,9 +4,19 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import org.junit.jupiter.api.Test;
 
 import de.codecentric.fpl.AbstractFplTest;
+import de.codecentric.fpl.data.ParameterScope;
 import de.codecentric.fpl.datatypes.list.FplList;
 
 public class FplLazyTest extends AbstractFplTest {
@@ -38,4 +48,90 @@ public class FplLazyTest extends AbstractFplTest {
 		assertTrue(expression == lazy.evaluate(scope));
 		assertEquals("list", lazy.typeName());
 	}
+
+	@Test
+	public void makeEvaluatedOfNull() {
+		assertNull(FplLazy.makeEvaluated(scope, null));
+	}
+
+	@Test
+	public void makeOfParameterReturnsBoundLazy() throws Exception {
+		FplValue bound = FplLazy.make(scope, evaluate("quoted", "(quote (+ 1 2))"));
+		ParameterScope paramScope = new ParameterScope("p-scope", scope, nameToIndex("foo"), new FplValue[] { bound });
+		assertTrue(bound == FplLazy.make(paramScope, new Parameter(new Symbol("foo"), 0)));
+	}
+
+	@Test
+	public void makeOfParameterBoundToList() throws Exception {
+		FplValue list = FplList.fromValues(new Symbol("+"), FplInteger.valueOf(3), FplInteger.valueOf(4));
+		ParameterScope paramScope = new ParameterScope("p-scope", scope, nameToIndex("foo"), new FplValue[] { list });
+		FplValue lazy = FplLazy.make(paramScope, new Parameter(new Symbol("foo"), 0));
+		assertTrue(lazy instanceof FplLazy);
+		assertTrue(list == lazy.evaluate(scope));
+	}
+
+	@Test
+	public void argumentPassedOnIsEvaluatedOnce() throws Exception {
+		evaluate("counter", "(def counter 0)");
+		evaluate("twice", "(def-function twice (x) (+ x x))");
+		evaluate("pass-on", "(def-function pass-on (y) (twice y))");
+		assertEquals(FplInteger.valueOf(10), evaluate("call", "(pass-on (sequential (put counter (+ counter 1)) 5))"));
+		assertEquals(FplInteger.valueOf(1), scope.get("counter"));
+	}
+
+	@Test
+	public void argumentPassedOnIsLazy() throws Exception {
+		evaluate("counter", "(def counter 0)");
+		evaluate("ignore", "(def-function ignore (x) 0)");
+		evaluate("pass-on", "(def-function pass-on (y) (ignore y))");
+		assertEquals(FplInteger.valueOf(0), evaluate("call", "(pass-on (sequential (put counter (+ counter 1)) 5))"));
+		assertEquals(FplInteger.valueOf(0), scope.get("counter"));
+	}
+
+	@Test
+	public void quoteOfPassedOnParameterIsExpressionOfCaller() throws Exception {
+		evaluate("show", "(def-function show (x) (quote x))");
+		evaluate("pass-on", "(def-function pass-on (y) (show y))");
+		assertEquals("(+ 1 2)", evaluate("call", "(pass-on (+ 1 2))").toString());
+		evaluate("++", "(def-function ++ (x) (set (quote x) (+ x 1)))");
+		evaluate("inc", "(def-function inc (y) (++ y))");
+		evaluate("def", "(def foo 3)");
+		evaluate("call", "(inc foo)");
+		assertEquals(FplInteger.valueOf(4), scope.get("foo"));
+	}
+
+	@Test
+	public void lookupIsEvaluated() throws Exception {
+		evaluate("def", "(def x 42)");
+		FplValue lazy = FplLazy.make(scope, new Symbol("x"));
+		assertEquals(FplInteger.valueOf(42), lazy.evaluate(scope));
+		evaluate("set", "(set x 43)");
+		assertEquals(FplInteger.valueOf(42), lazy.evaluate(scope));
+	}
+
+	@Test
+	public void sideEffectsHappenOnceWithConcurrentEvaluation() throws Exception {
+		evaluate("counter", "(def counter 0)");
+		FplValue lazy = FplLazy.make(scope,
+				parser("increment", "(sequential (set counter (+ counter 1)) counter)").next());
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			List<Callable<FplValue>> tasks = new ArrayList<>();
+			for (int i = 0; i < 32; i++) {
+				tasks.add(() -> lazy.evaluate(scope));
+			}
+			for (Future<FplValue> f : executor.invokeAll(tasks)) {
+				assertEquals(FplInteger.valueOf(1), f.get());
+			}
+		} finally {
+			executor.shutdown();
+		}
+		assertEquals(FplInteger.valueOf(1), scope.get("counter"));
+	}
+
+	private static Map<String, Integer> nameToIndex(String name) {
+		Map<String, Integer> result = new HashMap<>();
+		result.put(name, 0);
+		return result;
+	}
 }
@@ -79,4 +79,30 @@ public class FunctionTest extends AbstractFplTest {
 		AbstractFunction f = new TestFunction(new Position("foo.fpl", 1, 42), "foo", false);
 		assertEquals(new Position("foo.fpl", 1, 42), f.getPosition());
 	}
+
+	@Test
+	public void fixedArityCalls() throws Exception {
+		evaluate("def", "(def-function three (a b c) (list a b c))");
+		evaluate("def", "(def-function two (a b) (list a b))");
+		evaluate("def", "(def-function one (a) (list a))");
+		evaluate("def", "(def-function none () 42)");
+		FplInteger i1 = FplInteger.valueOf(1);
+		FplInteger i2 = FplInteger.valueOf(2);
+		FplInteger i3 = FplInteger.valueOf(3);
+		assertEquals("(1 2 3)", ((Function) scope.get("three")).call3(scope, i1, i2, i3).toString());
+		assertEquals("(1 2)", ((Function) scope.get("two")).call2(scope, i1, i2).toString());
+		assertEquals("(1)", ((Function) scope.get("one")).call1(scope, i1).toString());
+		assertEquals(FplInteger.valueOf(42), ((Function) scope.get("none")).call0(scope));
+		// Other number of parameters: Currying or error as with call(...)
+		assertTrue(((Function) scope.get("three")).call2(scope, i1, i2) instanceof Function);
+		assertThrows(EvaluationException.class, () -> ((Function) scope.get("one")).call3(scope, i1, i2, i3));
+	}
+
+	@Test
+	public void fixedArityCallsOfVarArgFunction() throws Exception {
+		evaluate("def", "(def-function var (a b...) (list a b))");
+		Function var = (Function) scope.get("var");
+		assertEquals("(1 ())", var.call1(scope, FplInteger.valueOf(1)).toString());
+		assertEquals("(1 (2 3))", var.call3(scope, FplInteger.valueOf(1), FplInteger.valueOf(2), FplInteger.valueOf(3)).toString());
+	}
 }
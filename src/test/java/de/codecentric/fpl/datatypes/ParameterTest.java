@@ -46,4 +46,19 @@ public class ParameterTest {
 		});
 		assertEquals("not nested in ParameterScope", e.getMessage());
 	}
+
+	@Test void outerParameter() {
+		Map<String, Integer> outerNames = new HashMap<>();
+		outerNames.put("foo", 0);
+		ParameterScope outer = new ParameterScope("outer", null, outerNames, new FplValue[] { new FplString("baz") });
+		Map<String, Integer> innerNames = new HashMap<>();
+		innerNames.put("bar", 0);
+		ParameterScope inner = new ParameterScope("inner", outer, innerNames, new FplValue[] { new FplString("bar") });
+		Parameter outerParameter = new Parameter(new Symbol("foo"), 1, 0);
+		assertEquals(1, outerParameter.getDepth());
+		assertEquals(0, outerParameter.getIndex());
+		assertEquals(new FplString("baz"), outerParameter.evaluate(new MapScope("nested", inner)));
+		inner.put("foo", new FplString("local"));
+		assertEquals(new FplString("local"), outerParameter.evaluate(inner));
+	}
 }
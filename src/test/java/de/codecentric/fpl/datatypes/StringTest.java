@@ -3,6 +3,7 @@ package de.codecentric.fpl.datatypes;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
@@ -67,4 +68,20 @@ public class StringTest {
 	public void makeWithContent() {
 		assertEquals("Huhu", FplString.make("Huhu").getContent());
 	}
+
+	@Test
+	public void contentIsNotCopied() {
+		String content = "Huhu";
+		FplString string = new FplString(content);
+		assertSame(content, string.getContent());
+		assertSame(string.getContent(), string.getContent());
+		assertEquals(content.hashCode(), string.hashCode());
+	}
+
+	@Test
+	public void compareNonAscii() {
+		assertTrue(new FplString("\u00e4").compareTo(new FplString("\u20ac")) < 0);
+		assertTrue(new FplString("ab").compareTo(new FplString("abc")) < 0);
+		assertFalse(new FplString("\u00e4").equals(new FplString("\u20ac")));
+	}
 }
@@ -162,4 +162,22 @@ public class AccessMethodTest extends AbstractListTest {
 			create(0, 101).get(101);
 		});
 	}
+
+	@Test
+	public void getAndSetWithManyBuckets() throws EvaluationException {
+		FplList list = create(0, 106, 1, 3, 8, 32, 8, 50, 4);
+		assertEquals(106, list.size());
+		check(list, 0, 106);
+		for (int i = 0; i < 106; i++) {
+			FplList changed = list.set(i, value(-1));
+			assertEquals(106, changed.size());
+			assertEquals(value(-1), changed.get(i));
+			assertEquals(value(i), list.get(i));
+		}
+		EvaluationException e = assertThrows(EvaluationException.class, () -> {
+			list.get(106);
+		});
+		assertEquals("position >= size", e.getMessage());
+		check(list.subList(3, 90), 3, 90);
+	}
 }
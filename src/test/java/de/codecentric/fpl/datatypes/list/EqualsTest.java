@@ -0,0 +1,70 @@
+package de.codecentric.fpl.datatypes.list;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import de.codecentric.fpl.EvaluationException;
+import de.codecentric.fpl.datatypes.FplString;
+import de.codecentric.fpl.datatypes.FplValue;
+import de.codecentric.fpl.datatypes.Symbol;
+
+public class EqualsTest extends AbstractListTest {
+
+	@Test
+	public void equalIndependentOfStorage() throws EvaluationException {
+		FplList buckets = create(0, 2_000, 6, 24, 96, 1_748, 96, 24, 6);
+		long[] longs = new long[2_000];
+		for (int i = 0; i < longs.length; i++) {
+			longs[i] = i;
+		}
+		FplList[] lists = { buckets, create(0, 2_000), FplList.fromLongs(longs), create(0, 2_000).set(0, value(0)),
+				create(-1, 2_000).subList(1, 2_001), FplList.fromLongs(longs.clone()) };
+		for (FplList a : lists) {
+			for (FplList b : lists) {
+				assertEquals(a, b);
+				assertEquals(a.hashCode(), b.hashCode());
+			}
+		}
+		assertEquals(Arrays.asList(createValues(0, 2_000)).hashCode(), buckets.hashCode());
+	}
+
+	@Test
+	public void notEqual() throws EvaluationException {
+		FplList list = create(0, 100);
+		assertNotEquals(list, create(0, 99));
+		assertNotEquals(list, list.set(50, value(-1)));
+		assertNotEquals(list, list.set(50, null));
+		assertNotEquals(list, null);
+		assertNotEquals(list, new FplString("list"));
+		assertNotEquals(FplList.fromValues(value(1), null), FplList.fromValues(null, value(1)));
+		list.hashCode();
+		assertNotEquals(list, create(1, 101));
+	}
+
+	@Test
+	public void listsAsKeys() {
+		Map<FplValue, String> map = new HashMap<>();
+		map.put(FplList.fromValues(new FplString("a"), value(1)), "a1");
+		assertEquals("a1", map.get(FplList.fromValues(new FplString("a"), value(1))));
+		assertEquals(0, FplList.EMPTY_LIST.hashCode());
+	}
+
+	@Test
+	public void compiledListEqualsPlainList() {
+		Symbol plus = new Symbol("+");
+		FplList plain = FplList.fromValues(plus, value(1), value(2));
+		FplList call = new FunctionCall(FplList.fromValues(plus, value(1), value(2)));
+		assertEquals(plain, call);
+		assertEquals(call, plain);
+		assertEquals(plain.hashCode(), call.hashCode());
+		Map<FplValue, String> map = new HashMap<>();
+		map.put(call, "call");
+		assertEquals("call", map.get(plain));
+	}
+}
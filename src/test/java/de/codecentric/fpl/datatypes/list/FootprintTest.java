@@ -0,0 +1,77 @@
+package de.codecentric.fpl.datatypes.list;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import de.codecentric.fpl.EvaluationException;
+
+public class FootprintTest extends AbstractListTest {
+
+	@Test
+	public void fragmentedListIsCompacted() throws EvaluationException {
+		FplList list = create(0, 100, 1, 1, 1, 1, 1, 1, 94);
+		assertTrue(list.isFragmented());
+		assertEquals(7, list.arrayCount());
+		FplList compacted = list.compact();
+		assertFalse(compacted.isFragmented());
+		check(compacted, 0, 100);
+		checkSizes(compacted, 4, 16, 60, 16, 4);
+		assertSame(compacted, compacted.compact());
+		assertSame(compacted, compacted.compactIfFragmented());
+		assertTrue(compacted.estimatedBytes() < list.estimatedBytes());
+	}
+
+	@Test
+	public void compactOtherStorages() throws EvaluationException {
+		FplList longs = FplList.fromLongs(new long[100]);
+		assertEquals("longs", longs.storageKind());
+		assertSame(longs, longs.compact());
+		FplList view = longs.subList(0, 50);
+		assertEquals("view", view.storageKind());
+		assertEquals(0, view.arrayCount());
+		assertEquals("longs", view.compact().storageKind());
+		assertEquals(FplList.OBJECT_BYTES + ListStorage.OBJECT_BYTES + FplList.arrayBytes(50, 8), view.compact().estimatedBytes());
+
+		FplList rope = create(0, 2_000).set(0, value(0));
+		assertEquals("rope", rope.storageKind());
+		assertEquals(63, rope.arrayCount());
+		FplList compacted = rope.compact();
+		assertEquals("buckets", compacted.storageKind());
+		check(compacted, 0, 2_000);
+		check(create(0, 100).subList(10, 90).compact(), 10, 90);
+	}
+
+	@Test
+	public void primitiveListKeepsNoBoxedCopy() throws EvaluationException {
+		FplList longs = FplList.fromLongs(new long[100]);
+		long bytes = longs.estimatedBytes();
+		FplList added = longs.addAtEnd(value(1)).addAtStart(value(2)).append(longs);
+		assertEquals(202, added.size());
+		assertEquals(value(4), longs.set(3, value(4)).get(3));
+		assertEquals(bytes, longs.estimatedBytes());
+		assertEquals("longs", longs.storageKind());
+	}
+
+	@Test
+	public void viewKeepsNoCopy() throws EvaluationException {
+		FplList view = create(0, 100).subList(10, 90);
+		assertEquals("view", view.storageKind());
+		long bytes = view.estimatedBytes();
+		FplList added = view.addAtEnd(value(90));
+		assertEquals("buckets", added.storageKind());
+		check(added, 10, 91);
+		assertEquals(bytes, view.estimatedBytes());
+	}
+
+	@Test
+	public void arrayBytes() {
+		assertEquals(16, FplList.arrayBytes(0, 4));
+		assertEquals(24, FplList.arrayBytes(1, 4));
+		assertEquals(24, FplList.arrayBytes(2, 4));
+		assertEquals(816, FplList.arrayBytes(100, 8));
+	}
+}
@@ -0,0 +1,46 @@
+package de.codecentric.fpl.datatypes.list;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+import de.codecentric.fpl.EvaluationException;
+
+public class FplListBuilderTest extends AbstractListTest {
+
+	@Test
+	public void partiallyFilledLastBucketIsNotCopied() throws EvaluationException {
+		FplListBuilder builder = new FplListBuilder();
+		for (int i = 0; i < 100; i++) {
+			builder.add(value(i));
+		}
+		FplList list = builder.toList();
+		assertEquals("view", list.storageKind());
+		check(list, 0, 100);
+		check(list.addAtEnd(value(100)), 0, 101);
+		assertThrows(EvaluationException.class, () -> builder.add(value(100)));
+	}
+
+	@Test
+	public void fullBucketsAreTakenOver() throws EvaluationException {
+		FplListBuilder builder = new FplListBuilder();
+		for (int i = 0; i < 38; i++) {
+			builder.add(value(i));
+		}
+		FplList list = builder.toList();
+		assertEquals("buckets", list.storageKind());
+		checkSizes(list, 8, 12, 18);
+		check(list, 0, 38);
+	}
+
+	@Test
+	public void smallListIsCopied() throws EvaluationException {
+		FplListBuilder builder = new FplListBuilder();
+		builder.add(value(0)).add(value(1));
+		FplList list = builder.toList();
+		assertEquals("buckets", list.storageKind());
+		checkSizes(list, 2);
+		assertEquals(FplList.EMPTY_LIST, new FplListBuilder().toList());
+	}
+}
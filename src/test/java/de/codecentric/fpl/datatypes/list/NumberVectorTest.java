@@ -0,0 +1,105 @@
+package de.codecentric.fpl.datatypes.list;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigInteger;
+
+import org.junit.jupiter.api.Test;
+
+import de.codecentric.fpl.EvaluationException;
+import de.codecentric.fpl.datatypes.FplBigInteger;
+import de.codecentric.fpl.datatypes.FplDouble;
+import de.codecentric.fpl.datatypes.FplInteger;
+
+public class NumberVectorTest extends AbstractListTest {
+
+	@Test
+	public void boxedList() throws EvaluationException {
+		NumberVector vector = NumberVector.of(create(0, 100, 10, 30, 60));
+		assertEquals(100, vector.size());
+		assertEquals(FplInteger.valueOf(4_950), vector.sum(false));
+		assertEquals(FplInteger.valueOf(0), vector.min());
+		assertEquals(FplInteger.valueOf(99), vector.max());
+		assertEquals(49.5, vector.mean(), 0.0);
+	}
+
+	@Test
+	public void mixedListBecomesDouble() throws EvaluationException {
+		NumberVector vector = NumberVector.of(FplList.fromValues(FplInteger.valueOf(1), new FplDouble(0.5),
+				FplInteger.valueOf(3)));
+		assertEquals(new FplDouble(4.5), vector.sum(false));
+		assertEquals(new FplDouble(0.5), vector.min());
+		assertEquals(new FplDouble(3.0), vector.max());
+		assertEquals("(2.0 1.5 6.0)", vector.multiply(NumberVector.of(FplList.fromLongs(new long[] { 2, 3, 2 })), false)
+				.toString());
+	}
+
+	@Test
+	public void viewsOfPrimitiveLists() throws EvaluationException {
+		long[] longs = new long[100];
+		double[] doubles = new double[100];
+		for (int i = 0; i < 100; i++) {
+			longs[i] = i;
+			doubles[i] = i / 2.0;
+		}
+		FplList longView = FplList.fromLongs(longs).subList(50, 100);
+		FplList doubleView = FplList.fromDoubles(doubles).subList(0, 50);
+		assertTrue(longView.isView());
+		assertTrue(doubleView.isView());
+		NumberVector a = NumberVector.of(longView);
+		NumberVector b = NumberVector.of(doubleView);
+		assertEquals(FplInteger.valueOf(3_725), a.sum(false));
+		assertEquals(FplInteger.valueOf(50), a.min());
+		assertEquals(new FplDouble(24.5), b.max());
+		FplList sum = a.add(a, false);
+		assertEquals(FplInteger.valueOf(100), sum.get(0));
+		assertEquals(FplInteger.valueOf(198), sum.get(49));
+		double expected = 0;
+		for (int i = 0; i < 50; i++) {
+			expected += (50 + i) * (i / 2.0);
+		}
+		assertEquals(new FplDouble(expected), a.dot(b, false));
+		assertEquals(new FplDouble(expected), b.dot(a, false));
+		assertEquals(Math.sqrt((50.0 * 50 - 1) / 12), a.standardDeviation(), 1e-12);
+	}
+
+	@Test
+	public void illegalVectors() throws EvaluationException {
+		NumberVector empty = NumberVector.of(FplList.EMPTY_LIST);
+		assertEquals(FplInteger.valueOf(0), empty.sum(false));
+		assertThrows(EvaluationException.class, () -> empty.max());
+		assertThrows(EvaluationException.class, () -> empty.standardDeviation());
+		assertThrows(EvaluationException.class, () -> empty.add(NumberVector.of(create(0, 1)), false));
+	}
+
+	@Test
+	public void bigIntegers() throws EvaluationException {
+		BigInteger big = BigInteger.ONE.shiftLeft(64);
+		NumberVector vector = NumberVector.of(FplList.fromValues(FplInteger.valueOf(1), FplBigInteger.valueOf(big),
+				FplInteger.valueOf(-1)));
+		assertEquals(FplBigInteger.valueOf(big), vector.sum(false));
+		assertEquals(FplInteger.valueOf(-1), vector.min());
+		assertEquals(FplBigInteger.valueOf(big), vector.max());
+		assertEquals(Math.pow(2, 64) / 3, vector.mean(), 1.0);
+		NumberVector ones = NumberVector.of(FplList.fromLongs(new long[] { 1, 1, 1 }));
+		assertEquals(FplBigInteger.valueOf(big), vector.dot(ones, false));
+		assertEquals("(2 18446744073709551617 0)", vector.add(ones, false).toString());
+		assertEquals(new FplDouble(Math.pow(2, 64) + 0.5), NumberVector
+				.of(FplList.fromValues(FplBigInteger.valueOf(big), new FplDouble(0.5))).sum(false));
+	}
+
+	@Test
+	public void checkedOverflowBecomesBigInteger() throws EvaluationException {
+		NumberVector vector = NumberVector.of(FplList.fromLongs(new long[] { Long.MAX_VALUE, 1 }));
+		assertEquals(FplInteger.valueOf(Long.MIN_VALUE), vector.sum(false));
+		assertEquals(FplBigInteger.valueOf(BigInteger.ONE.shiftLeft(63)), vector.sum(true));
+		assertEquals(FplInteger.valueOf(2), vector.dot(vector, false));
+		assertEquals(FplBigInteger.valueOf(BigInteger.valueOf(Long.MAX_VALUE).pow(2).add(BigInteger.ONE)),
+				vector.dot(vector, true));
+		assertEquals("(-2 2)", vector.add(vector, false).toString());
+		assertEquals("(18446744073709551614 2)", vector.add(vector, true).toString());
+		assertEquals("(85070591730234615847396907784232501249 1)", vector.multiply(vector, true).toString());
+	}
+}
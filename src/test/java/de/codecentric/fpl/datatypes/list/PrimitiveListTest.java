@@ -0,0 +1,94 @@
+package de.codecentric.fpl.datatypes.list;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+import de.codecentric.fpl.EvaluationException;
+import de.codecentric.fpl.datatypes.FplDouble;
+import de.codecentric.fpl.datatypes.FplInteger;
+import de.codecentric.fpl.datatypes.FplString;
+import de.codecentric.fpl.datatypes.FplValue;
+
+public class PrimitiveListTest extends AbstractListTest {
+
+	@Test
+	public void emptyArrays() {
+		assertSame(FplList.EMPTY_LIST, FplList.fromLongs(new long[0]));
+		assertSame(FplList.EMPTY_LIST, FplList.fromDoubles(new double[0]));
+		assertSame(FplList.EMPTY_LIST, FplList.fromNumbers(createValuesIterator(0, 0)));
+	}
+
+	@Test
+	public void longs() throws EvaluationException {
+		FplList list = FplList.fromLongs(new long[] { 0, 1, 2, 3, 4, 5, 6, 7, 8, 9 });
+		assertEquals(10, list.size());
+		check(list, 0, 10);
+		assertEquals(value(0), list.first());
+		assertEquals(value(9), list.last());
+		assertEquals("(0 1 2 3 4 5 6 7 8 9)", list.toString());
+		assertThrows(EvaluationException.class, () -> list.get(10));
+		assertThrows(EvaluationException.class, () -> list.get(-1));
+	}
+
+	@Test
+	public void doubles() throws EvaluationException {
+		FplList list = FplList.fromDoubles(new double[] { 1.5, 2.5 });
+		assertEquals(2, list.size());
+		assertEquals(1.5, ((FplDouble) list.get(0)).getValue());
+		assertEquals(2.5, ((FplDouble) list.last()).getValue());
+		assertEquals("(2.5)", list.subList(1, 2).toString());
+		assertEquals("(0 1.5 2.5)", list.addAtStart(value(0)).toString());
+	}
+
+	@Test
+	public void subList() throws EvaluationException {
+		FplList list = FplList.fromNumbers(createValuesIterator(0, 100));
+		assertSame(list, list.subList(0, 100));
+		check(list.subList(10, 20), 10, 20);
+		assertSame(FplList.EMPTY_LIST, list.subList(5, 5));
+	}
+
+	@Test
+	public void modificationsBoxTheElements() throws EvaluationException {
+		FplList list = FplList.fromNumbers(createValuesIterator(0, 100), 100);
+		check(list.addAtStart(value(-1)), -1, 100);
+		check(list.addAtEnd(value(100)), 0, 101);
+		check(list.append(list.set(0, value(0))).subList(100, 200), 0, 100);
+		check(list.removeFirst(), 1, 100);
+		check(list.lowerHalf(), 0, 50);
+		check(list, 0, 100);
+	}
+
+	@Test
+	public void mixedNumbersAreNotPacked() throws EvaluationException {
+		FplValue[] values = createValues(0, 20);
+		values[15] = new FplDouble(15);
+		FplList list = FplList.fromNumbers(Arrays.asList(values).iterator(), 1);
+		assertEquals(20, list.size());
+		assertEquals(value(14), list.get(14));
+		assertEquals(15.0, ((FplDouble) list.get(15)).getValue());
+		assertEquals(value(19), list.get(19));
+	}
+
+	@Test
+	public void doublesFollowedByString() throws EvaluationException {
+		FplList list = FplList.fromNumbers(
+				Arrays.<FplValue>asList(new FplDouble(1), new FplDouble(2), new FplString("x")).iterator());
+		assertEquals("(1.0 2.0 \"x\")", list.toString());
+	}
+
+	@Test
+	public void firstNotANumber() throws EvaluationException {
+		FplList list = FplList.fromNumbers(Arrays.<FplValue>asList(null, FplInteger.valueOf(1)).iterator());
+		assertEquals("(nil 1)", list.toString());
+	}
+
+	private static java.util.Iterator<FplValue> createValuesIterator(int from, int to) {
+		return Arrays.asList(createValues(from, to)).iterator();
+	}
+}
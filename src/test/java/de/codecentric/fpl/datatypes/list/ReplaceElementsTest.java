@@ -181,4 +181,21 @@ public class ReplaceElementsTest extends AbstractListTest {
 			assertEquals(reference.get(i), result.get(i), "difference at position " + i);
 		}
 	}
+
+	@Test
+	public void repeatedReplaceReshapes() throws EvaluationException {
+		java.util.Random random = new java.util.Random(42);
+		java.util.List<FplValue> model = new java.util.ArrayList<>(java.util.Arrays.asList(createValues(0, 1000)));
+		FplList list = create(0, 1000);
+		for (int i = 0; i < 300; i++) {
+			int from = random.nextInt(model.size() - 10);
+			list = list.replaceElements(from, FplList.fromValue(value(-i)), 3);
+			model.subList(from, from + 3).clear();
+			model.add(from, value(-i));
+			assertEquals(model.size(), list.size());
+		}
+		for (int i = 0; i < model.size(); i++) {
+			assertEquals(model.get(i), list.get(i));
+		}
+	}
 }
@@ -0,0 +1,119 @@
+package de.codecentric.fpl.datatypes.list;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import de.codecentric.fpl.EvaluationException;
+import de.codecentric.fpl.datatypes.FplValue;
+
+public class RopeTest extends AbstractListTest {
+
+	@Test
+	public void fromShape() {
+		assertNull(Rope.fromShape(new FplValue[0][]));
+		Rope rope = Rope.fromShape(create(0, 1000, 8, 32, 500, 460).shape());
+		assertEquals(1000, rope.size);
+		assertTrue(rope.isBalanced());
+		check(rope, 0, 1000);
+	}
+
+	@Test
+	public void setSharesOtherLeaves() {
+		Rope rope = Rope.fromShape(create(0, 100).shape());
+		Rope changed = rope.set(50, value(-1));
+		assertEquals(value(-1), changed.get(50));
+		assertEquals(value(50), rope.get(50));
+		assertSame(rope.slice(0, 32), changed.slice(0, 32));
+	}
+
+	@Test
+	public void randomOperations() {
+		Random random = new Random(4711);
+		List<FplValue> model = new ArrayList<>();
+		Rope rope = null;
+		for (int step = 0; step < 2000; step++) {
+			int size = model.size();
+			switch (random.nextInt(4)) {
+			case 0: { // append a list
+				int from = random.nextInt(1000);
+				int to = from + 1 + random.nextInt(100);
+				model.addAll(java.util.Arrays.asList(createValues(from, to)));
+				rope = Rope.concat(rope, Rope.fromShape(create(from, to).shape()));
+				break;
+			}
+			case 1: // insert at start
+				model.add(0, value(step));
+				rope = Rope.concat(Rope.leaf(value(step)), rope);
+				break;
+			case 2: // slice
+				if (size > 1) {
+					int from = random.nextInt(size / 2);
+					int to = size - random.nextInt(size / 2);
+					model = new ArrayList<>(model.subList(from, to));
+					rope = rope.slice(from, to);
+				}
+				break;
+			default: // set
+				if (size > 0) {
+					int position = random.nextInt(size);
+					model.set(position, value(-step));
+					rope = rope.set(position, value(-step));
+				}
+			}
+			if (model.isEmpty()) {
+				assertNull(rope);
+			} else {
+				assertEquals(model.size(), rope.size);
+				assertTrue(rope.isBalanced());
+				Iterator<FplValue> iter = rope.iterator();
+				for (int i = 0; i < model.size(); i++) {
+					assertEquals(model.get(i), rope.get(i));
+					assertEquals(model.get(i), iter.next());
+				}
+			}
+		}
+	}
+
+	@Test
+	public void listSwitchesToRopeOnSet() throws EvaluationException {
+		FplList list = create(0, 10_000);
+		FplList changed = list;
+		for (int i = 0; i < 10_000; i += 7) {
+			changed = changed.set(i, value(-i));
+		}
+		for (int i = 0; i < 10_000; i++) {
+			assertEquals(value(i % 7 == 0 ? -i : i), changed.get(i));
+			assertEquals(value(i), list.get(i));
+		}
+		changed = changed.replaceElements(0, create(0, 10_000), 10_000);
+		check(changed, 0, 10_000);
+		check(changed.addAtStart(value(-1)).addAtEnd(value(10_000)), -1, 10_001);
+		check(changed.removeFirst().removeLast(), 1, 9_999);
+		check(changed.lowerHalf(), 0, 5_000);
+		check(changed.upperHalf(), 5_000, 10_000);
+		check(changed.subList(10, 20), 10, 20);
+		check(create(-100, 0).append(changed).append(create(10_000, 10_100)), -100, 10_100);
+		check(changed.replaceElements(5, FplList.EMPTY_LIST, 9_990), 0, 5, 9_995, 10_000);
+	}
+
+	private static void check(Rope rope, int from, int to) {
+		for (int i = from; i < to; i++) {
+			assertEquals(value(i), rope.get(i - from));
+		}
+	}
+
+	private static void check(FplList list, int from1, int to1, int from2, int to2) throws EvaluationException {
+		assertEquals(to1 - from1 + to2 - from2, list.size());
+		check(list.subList(0, to1 - from1), from1, to1);
+		check(list.subList(to1 - from1, list.size()), from2, to2);
+	}
+}
@@ -0,0 +1,83 @@
+package de.codecentric.fpl.datatypes.list;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+import de.codecentric.fpl.EvaluationException;
+import de.codecentric.fpl.datatypes.FplInteger;
+import de.codecentric.fpl.datatypes.FplValue;
+
+public class StreamTest extends AbstractListTest {
+
+	@Test
+	public void emptyList() {
+		assertEquals(0, FplList.EMPTY_LIST.stream().count());
+		assertNull(FplList.EMPTY_LIST.spliterator().trySplit());
+	}
+
+	@Test
+	public void sequentialStream() {
+		List<FplValue> values = create(0, 100, 10, 30, 40, 20).stream().collect(Collectors.toList());
+		assertEquals(100, values.size());
+		for (int i = 0; i < 100; i++) {
+			assertEquals(value(i), values.get(i));
+		}
+	}
+
+	@Test
+	public void parallelStreamKeepsOrder() throws EvaluationException {
+		FplList list = create(0, 10_000, 4, 16, 64, 256, 9_320, 256, 64, 16, 4);
+		Object[] values = list.parallelStream().map(v -> FplInteger.valueOf(((FplInteger) v).getValue() * 2))
+				.toArray();
+		assertEquals(10_000, values.length);
+		for (int i = 0; i < 10_000; i++) {
+			assertEquals(value(2 * i), values[i]);
+		}
+		assertEquals(49_995_000L, list.parallelStream().mapToLong(v -> ((FplInteger) v).getValue()).sum());
+	}
+
+	@Test
+	public void streamsOfOtherShapes() throws EvaluationException {
+		FplList longs = FplList.fromLongs(new long[] { 1, 2, 3 });
+		assertEquals(6L, longs.parallelStream().mapToLong(v -> ((FplInteger) v).getValue()).sum());
+		FplList rope = create(0, 2_000).set(0, value(0));
+		assertEquals(1_999_000L, rope.parallelStream().mapToLong(v -> ((FplInteger) v).getValue()).sum());
+		check(FplList.fromValues(rope.stream().skip(1_000).collect(Collectors.toList())), 1_000, 2_000);
+	}
+
+	@Test
+	public void splitAtBucketBoundary() {
+		Spliterator<FplValue> upper = create(0, 100, 10, 30, 40, 20).spliterator();
+		Spliterator<FplValue> lower = upper.trySplit();
+		assertEquals(40, lower.estimateSize());
+		assertEquals(60, upper.estimateSize());
+		assertTrue(upper.hasCharacteristics(Spliterator.SUBSIZED));
+		List<FplValue> values = new ArrayList<>();
+		assertTrue(lower.tryAdvance(values::add));
+		lower.forEachRemaining(values::add);
+		assertFalse(lower.tryAdvance(values::add));
+		upper.forEachRemaining(values::add);
+		assertEquals(100, values.size());
+		for (int i = 0; i < 100; i++) {
+			assertEquals(value(i), values.get(i));
+		}
+	}
+
+	@Test
+	public void splitDownToSingleElements() {
+		Spliterator<FplValue> upper = create(0, 3).spliterator();
+		Spliterator<FplValue> lower = upper.trySplit();
+		assertEquals(1, lower.estimateSize());
+		assertNull(lower.trySplit());
+		assertEquals(2, upper.estimateSize());
+	}
+}
@@ -0,0 +1,104 @@
+package de.codecentric.fpl.datatypes.list;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Spliterator;
+
+import org.junit.jupiter.api.Test;
+
+import de.codecentric.fpl.EvaluationException;
+import de.codecentric.fpl.datatypes.FplInteger;
+
+public class SubListViewTest extends AbstractListTest {
+
+	@Test
+	public void largeSubListIsView() throws EvaluationException {
+		FplList list = create(0, 1000, 8, 32, 128, 512, 320);
+		FplList view = list.subList(100, 900);
+		assertTrue(view.isView());
+		check(view, 100, 900);
+		checkValues(view.subList(0, 3), 100, 101, 102);
+		assertEquals(value(100), view.first());
+		assertEquals(value(899), view.last());
+		assertEquals(value(500), view.get(400));
+		assertThrows(EvaluationException.class, () -> view.get(800));
+		assertSame(view, view.subList(0, 800));
+	}
+
+	@Test
+	public void smallSubListIsCopied() throws EvaluationException {
+		FplList list = create(0, 1000);
+		assertFalse(list.subList(10, 20).isView());
+		assertFalse(list.subList(0, 100).isView());
+		assertTrue(list.subList(0, 125).isView());
+		check(list.subList(0, 100), 0, 100);
+	}
+
+	@Test
+	public void viewOfView() throws EvaluationException {
+		FplList list = create(0, 1000);
+		FplList view = list.subList(100, 900).subList(100, 700);
+		assertTrue(view.isView());
+		check(view, 200, 800);
+		// Much smaller than the base list: copied
+		FplList small = view.subList(10, 50);
+		assertFalse(small.isView());
+		check(small, 210, 250);
+	}
+
+	@Test
+	public void removeFirstAndLast() throws EvaluationException {
+		FplList view = create(0, 100).subList(1, 100);
+		FplList shorter = view.removeFirst().removeLast();
+		assertTrue(shorter.isView());
+		check(shorter, 2, 99);
+		FplList longs = FplList.fromLongs(new long[100]).removeFirst();
+		assertTrue(longs.isView());
+		assertEquals(99, longs.size());
+	}
+
+	@Test
+	public void halves() throws EvaluationException {
+		FplList view = create(0, 1000).subList(0, 999);
+		check(view.lowerHalf(), 0, 499);
+		check(view.upperHalf(), 499, 999);
+		assertTrue(view.upperHalf().isView());
+	}
+
+	@Test
+	public void modifyView() throws EvaluationException {
+		FplList view = create(0, 100, 10, 30, 60).subList(10, 90);
+		check(view.addAtStart(value(9)).addAtEnd(value(90)), 9, 91);
+		check(view.append(create(90, 100)), 10, 100);
+		check(create(0, 10).append(view), 0, 90);
+		FplList changed = view.set(0, value(-1));
+		assertEquals(value(-1), changed.get(0));
+		check(changed.subList(1, 80), 11, 90);
+		check(view, 10, 90);
+	}
+
+	@Test
+	public void streamOfView() throws EvaluationException {
+		FplList view = create(0, 10_000, 4, 16, 64, 256, 9_320, 256, 64, 16, 4).subList(1_000, 9_000);
+		assertEquals(39_996_000L, view.parallelStream().mapToLong(v -> ((FplInteger) v).getValue()).sum());
+		Spliterator<?> spliterator = view.spliterator();
+		assertEquals(8_000, spliterator.estimateSize());
+		assertEquals(4_000, spliterator.trySplit().estimateSize());
+	}
+
+	@Test
+	public void viewOfPrimitiveList() throws EvaluationException {
+		long[] values = new long[100];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = i;
+		}
+		FplList view = FplList.fromLongs(values).subList(20, 80);
+		assertTrue(view.isView());
+		check(view, 20, 80);
+		assertEquals("(20 21 22)", view.subList(0, 3).toString());
+	}
+}
@@ -0,0 +1,50 @@
+package de.codecentric.fpl.datatypes.list;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.junit.jupiter.api.Test;
+
+import de.codecentric.fpl.EvaluationException;
+import de.codecentric.fpl.datatypes.FplValue;
+
+public class ToArrayTest extends AbstractListTest {
+
+	@Test
+	public void fromArrayTakingOwnership() throws EvaluationException {
+		assertSame(FplList.EMPTY_LIST, FplList.fromArrayTakingOwnership(new FplValue[0]));
+		FplValue[] values = createValues(0, 100);
+		FplList list = FplList.fromArrayTakingOwnership(values);
+		check(list, 0, 100);
+		assertSame(values, list.shape()[0]);
+	}
+
+	@Test
+	public void toArrayOfAllStorages() throws EvaluationException {
+		FplValue[] expected = createValues(0, 2_000);
+		assertArrayEquals(expected, create(0, 2_000, 6, 24, 96, 1_748, 96, 24, 6).toArray());
+		assertArrayEquals(expected, create(0, 2_000).set(0, value(0)).toArray());
+		assertArrayEquals(createValues(100, 1_900), create(0, 2_000, 6, 24, 96, 1_748, 96, 24, 6)
+				.subList(100, 1_900).toArray());
+		long[] longs = new long[2_000];
+		for (int i = 0; i < longs.length; i++) {
+			longs[i] = i;
+		}
+		assertArrayEquals(expected, FplList.fromLongs(longs).toArray());
+		assertArrayEquals(createValues(1, 1_999), FplList.fromLongs(longs).subList(1, 1_999).toArray());
+		assertEquals(0, FplList.EMPTY_LIST.toArray().length);
+	}
+
+	@Test
+	public void toArrayWithOffset() {
+		FplValue[] dst = new FplValue[12];
+		create(0, 10, 3, 3, 4).toArray(dst, 1);
+		assertNull(dst[0]);
+		for (int i = 0; i < 10; i++) {
+			assertEquals(value(i), dst[i + 1]);
+		}
+		assertNull(dst[11]);
+	}
+}
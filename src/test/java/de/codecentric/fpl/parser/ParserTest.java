@@ -2,6 +2,8 @@ package de.codecentric.fpl.parser;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -203,4 +205,17 @@ public class ParserTest extends AbstractFplTest {
 		assertEquals(Position.UNKNOWN, p.getPosition());
 		assertEquals("bar", p.getCause().getMessage());
 	}
+
+	@Test
+	public void quotedConstantListsAreShared() throws Exception {
+		Parser p = parser("constants", "'(1 \"a\" (2.5 nil)) '(1 \"a\" (2.5 nil)) '(1 a) '(1 a)");
+		FplList first = (FplList) p.next();
+		FplList second = (FplList) p.next();
+		assertNotSame(first, second);
+		assertSame(first.get(1), second.get(1));
+		FplList third = (FplList) p.next();
+		FplList fourth = (FplList) p.next();
+		assertEquals(third.get(1), fourth.get(1));
+		assertNotSame(third.get(1), fourth.get(1));
+	}
 }